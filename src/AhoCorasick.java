@@ -0,0 +1,125 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.IntConsumer;
+
+// Automat Aho-Corasick imuabil: toate tiparele sunt căutate într-o singură trecere
+// prin text, în timp liniar indiferent de numărul lor. Potrivirea ține cont de
+// majuscule; apelantul normalizează textul și tiparele (ex. toLowerCase).
+public final class AhoCorasick {
+    private final char[][] keys;
+    private final int[][] next;
+    private final int[] fail;
+    private final int[][] outputs;
+
+    private AhoCorasick(char[][] keys, int[][] next, int[] fail, int[][] outputs) {
+        this.keys = keys;
+        this.next = next;
+        this.fail = fail;
+        this.outputs = outputs;
+    }
+
+    // Identificatorul unui tipar este poziția lui în listă.
+    public static AhoCorasick build(List<String> patterns) {
+        List<TreeMap<Character, Integer>> edges = new ArrayList<>();
+        List<int[]> out = new ArrayList<>();
+        edges.add(new TreeMap<>());
+        out.add(new int[0]);
+        for (int id = 0; id < patterns.size(); id++) {
+            String pattern = patterns.get(id);
+            if (pattern == null || pattern.isEmpty()) continue;
+            int node = 0;
+            for (int i = 0; i < pattern.length(); i++) {
+                Integer child = edges.get(node).get(pattern.charAt(i));
+                if (child == null) {
+                    child = edges.size();
+                    edges.add(new TreeMap<>());
+                    out.add(new int[0]);
+                    edges.get(node).put(pattern.charAt(i), child);
+                }
+                node = child;
+            }
+            out.set(node, append(out.get(node), id));
+        }
+
+        int size = edges.size();
+        char[][] keys = new char[size][];
+        int[][] next = new int[size][];
+        for (int n = 0; n < size; n++) {
+            TreeMap<Character, Integer> map = edges.get(n);
+            keys[n] = new char[map.size()];
+            next[n] = new int[map.size()];
+            int i = 0;
+            for (Map.Entry<Character, Integer> e : map.entrySet()) {
+                keys[n][i] = e.getKey();
+                next[n][i] = e.getValue();
+                i++;
+            }
+        }
+
+        int[] fail = new int[size];
+        int[][] outputs = out.toArray(new int[0][]);
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+        for (int child : next[0]) {
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            for (int i = 0; i < keys[node].length; i++) {
+                char c = keys[node][i];
+                int child = next[node][i];
+                int f = fail[node];
+                int target;
+                while ((target = step(keys, next, f, c)) < 0 && f != 0) {
+                    f = fail[f];
+                }
+                fail[child] = target >= 0 && target != child ? target : 0;
+                if (outputs[fail[child]].length > 0) {
+                    outputs[child] = concat(outputs[child], outputs[fail[child]]);
+                }
+                queue.add(child);
+            }
+        }
+        return new AhoCorasick(keys, next, fail, outputs);
+    }
+
+    public boolean isEmpty() {
+        return keys[0].length == 0;
+    }
+
+    // Apelează onMatch pentru fiecare apariție a unui tipar (un id poate apărea de mai multe ori).
+    public void search(CharSequence text, IntConsumer onMatch) {
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            int target;
+            while ((target = step(keys, next, state, c)) < 0 && state != 0) {
+                state = fail[state];
+            }
+            state = Math.max(target, 0);
+            for (int id : outputs[state]) {
+                onMatch.accept(id);
+            }
+        }
+    }
+
+    private static int step(char[][] keys, int[][] next, int node, char c) {
+        int idx = Arrays.binarySearch(keys[node], c);
+        return idx >= 0 ? next[node][idx] : -1;
+    }
+
+    private static int[] append(int[] values, int value) {
+        int[] copy = Arrays.copyOf(values, values.length + 1);
+        copy[values.length] = value;
+        return copy;
+    }
+
+    private static int[] concat(int[] a, int[] b) {
+        int[] copy = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, copy, a.length, b.length);
+        return copy;
+    }
+}
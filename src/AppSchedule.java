@@ -0,0 +1,135 @@
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.util.BitSet;
+import java.util.Locale;
+
+// Program compilat o singură dată într-o hartă de biți pe minute pentru toată săptămâna
+// (7 x 1440 biți). Verificarea este un singur test de bit, fără alocări.
+// Sintaxă: intrări separate prin virgulă, fiecare "[zile] HH:mm-HH:mm", unde zilele
+// sunt o zi (Lu, Ma, Mi, Jo, Vi, Sa, Du) sau un interval de zile (Lu-Vi).
+// Fără zile, intervalul se aplică în fiecare zi. Un interval peste miezul nopții
+// continuă în ziua următoare; start == end înseamnă toată ziua.
+public final class AppSchedule {
+    private static final int MINUTES_PER_DAY = 24 * 60;
+    private static final int MINUTES_PER_WEEK = 7 * MINUTES_PER_DAY;
+    private static final String[] DAY_NAMES = {"lu", "ma", "mi", "jo", "vi", "sa", "du"};
+
+    private final BitSet allowed;
+    private final boolean always;
+    private final boolean never;
+
+    private AppSchedule(BitSet allowed) {
+        this.allowed = allowed;
+        int count = allowed.cardinality();
+        this.always = count == MINUTES_PER_WEEK;
+        this.never = count == 0;
+    }
+
+    // Aruncă IllegalArgumentException cu un mesaj explicit la prima intrare invalidă.
+    public static AppSchedule parse(String text) {
+        return compile(text, true);
+    }
+
+    // Pentru date vechi din fișier: intrările invalide sunt ignorate (nu permit nimic).
+    public static AppSchedule parseLenient(String text) {
+        return compile(text, false);
+    }
+
+    private static AppSchedule compile(String text, boolean strict) {
+        BitSet bits = new BitSet(MINUTES_PER_WEEK);
+        if (text != null) {
+            for (String raw : text.split(",")) {
+                String entry = raw.trim();
+                if (entry.isEmpty()) continue;
+                try {
+                    addEntry(bits, entry);
+                } catch (IllegalArgumentException ex) {
+                    if (strict) throw ex;
+                }
+            }
+        }
+        return new AppSchedule(bits);
+    }
+
+    private static void addEntry(BitSet bits, String entry) {
+        int firstDay = 0;
+        int lastDay = 6;
+        String times = entry;
+        int space = entry.indexOf(' ');
+        if (space > 0 && Character.isLetter(entry.charAt(0))) {
+            String days = entry.substring(0, space).trim().toLowerCase(Locale.ROOT);
+            times = entry.substring(space + 1).trim();
+            int dash = days.indexOf('-');
+            firstDay = parseDay(dash > 0 ? days.substring(0, dash) : days, entry);
+            lastDay = dash > 0 ? parseDay(days.substring(dash + 1), entry) : firstDay;
+        }
+        String[] bounds = times.split("-");
+        if (bounds.length != 2) {
+            throw new IllegalArgumentException("Interval invalid: \"" + entry + "\" (format HH:mm-HH:mm)");
+        }
+        int start = parseMinute(bounds[0].trim(), entry);
+        int end = parseMinute(bounds[1].trim(), entry);
+        int length = end > start ? end - start : end + MINUTES_PER_DAY - start;
+        int day = firstDay;
+        while (true) {
+            int from = day * MINUTES_PER_DAY + start;
+            int to = from + length;
+            if (to <= MINUTES_PER_WEEK) {
+                bits.set(from, to);
+            } else {
+                bits.set(from, MINUTES_PER_WEEK);
+                bits.set(0, to - MINUTES_PER_WEEK);
+            }
+            if (day == lastDay) break;
+            day = (day + 1) % 7;
+        }
+    }
+
+    private static int parseDay(String token, String entry) {
+        String normalized = token.trim().replace('â', 'a').replace('ă', 'a');
+        for (int i = 0; i < DAY_NAMES.length; i++) {
+            if (DAY_NAMES[i].equals(normalized)) return i;
+        }
+        throw new IllegalArgumentException("Zi necunoscută \"" + token + "\" în \"" + entry + "\" (folosiți Lu, Ma, Mi, Jo, Vi, Sa, Du)");
+    }
+
+    private static int parseMinute(String value, String entry) {
+        int colon = value.indexOf(':');
+        if (colon <= 0 || colon == value.length() - 1) {
+            throw new IllegalArgumentException("Oră invalidă \"" + value + "\" în \"" + entry + "\" (format HH:mm)");
+        }
+        try {
+            int hours = Integer.parseInt(value.substring(0, colon));
+            int minutes = Integer.parseInt(value.substring(colon + 1));
+            if (hours < 0 || hours > 23 || minutes < 0 || minutes > 59) {
+                throw new NumberFormatException();
+            }
+            return hours * 60 + minutes;
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Oră invalidă \"" + value + "\" în \"" + entry + "\" (format HH:mm)");
+        }
+    }
+
+    private static int minuteOfWeek(LocalDateTime time) {
+        DayOfWeek day = time.getDayOfWeek();
+        return (day.getValue() - 1) * MINUTES_PER_DAY + time.getHour() * 60 + time.getMinute();
+    }
+
+    public boolean isAllowed(LocalDateTime time) {
+        return allowed.get(minuteOfWeek(time));
+    }
+
+    // Următorul moment în care isAllowed își schimbă valoarea (null dacă nu se schimbă niciodată).
+    public LocalDateTime nextBoundary(LocalDateTime now) {
+        if (always || never) {
+            return null;
+        }
+        int current = minuteOfWeek(now);
+        boolean state = allowed.get(current);
+        int next = state ? allowed.nextClearBit(current + 1) : allowed.nextSetBit(current + 1);
+        if (next < 0 || next >= MINUTES_PER_WEEK) {
+            next = (state ? allowed.nextClearBit(0) : allowed.nextSetBit(0)) + MINUTES_PER_WEEK;
+        }
+        return now.withSecond(0).withNano(0).plusMinutes(next - current);
+    }
+}
@@ -1,12 +1,12 @@
 import java.nio.file.InvalidPathException;
 import java.nio.file.Paths;
 import java.time.LocalDate;
-import java.time.LocalTime;
-import java.time.format.DateTimeFormatter;
-import java.time.format.DateTimeParseException;
+import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Objects;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 public class BlockedApp {
     private String id;
@@ -19,11 +19,32 @@ public class BlockedApp {
     private long usageMillisToday;
     private String usageDateIso;
     private String allowedIntervals;
+    private AppSchedule schedule;
+    private String commandLinePattern;
+    private List<String> commandLinePatterns = List.of();
+    private String contentSha256;
 
     public BlockedApp() {
         this.id = UUID.randomUUID().toString();
     }
 
+    public BlockedApp(BlockedApp other) {
+        this.id = other.id;
+        this.displayName = other.displayName;
+        this.exeName = other.exeName;
+        this.enabled = other.enabled;
+        this.blockImmediately = other.blockImmediately;
+        this.exePath = other.exePath;
+        this.dailyLimitMinutes = other.dailyLimitMinutes;
+        this.usageMillisToday = other.usageMillisToday;
+        this.usageDateIso = other.usageDateIso;
+        this.allowedIntervals = other.allowedIntervals;
+        this.schedule = other.schedule;
+        this.commandLinePattern = other.commandLinePattern;
+        this.commandLinePatterns = other.commandLinePatterns;
+        this.contentSha256 = other.contentSha256;
+    }
+
     public BlockedApp(String displayName, String exeName, boolean enabled) {
         this.id = UUID.randomUUID().toString();
         this.displayName = displayName;
@@ -121,10 +142,49 @@ public class BlockedApp {
         return allowedIntervals;
     }
 
+    // Aruncă IllegalArgumentException dacă textul nu este un program valid.
     public void setAllowedIntervals(String allowedIntervals) {
+        this.schedule = isBlank(allowedIntervals) ? null : AppSchedule.parse(allowedIntervals);
+        this.allowedIntervals = allowedIntervals;
+    }
+
+    // Folosit la încărcare: intrările invalide din fișiere vechi nu permit rularea.
+    public void loadAllowedIntervals(String allowedIntervals) {
+        this.schedule = isBlank(allowedIntervals) ? null : AppSchedule.parseLenient(allowedIntervals);
         this.allowedIntervals = allowedIntervals;
     }
 
+    public String getCommandLinePattern() {
+        return commandLinePattern;
+    }
+
+    // Unul sau mai multe fragmente, separate prin virgulă, căutate în linia de comandă completă.
+    public void setCommandLinePattern(String commandLinePattern) {
+        this.commandLinePattern = commandLinePattern;
+        if (isBlank(commandLinePattern)) {
+            this.commandLinePatterns = List.of();
+            return;
+        }
+        this.commandLinePatterns = Arrays.stream(commandLinePattern.split(","))
+                .map(p -> p.trim().toLowerCase())
+                .filter(p -> !p.isEmpty())
+                .distinct()
+                .collect(Collectors.toUnmodifiableList());
+    }
+
+    public List<String> getCommandLinePatterns() {
+        return commandLinePatterns;
+    }
+
+    // Amprenta SHA-256 a executabilului; procesul e recunoscut și dacă binarul a fost redenumit.
+    public String getContentSha256() {
+        return contentSha256;
+    }
+
+    public void setContentSha256(String contentSha256) {
+        this.contentSha256 = isBlank(contentSha256) ? null : contentSha256.trim().toLowerCase();
+    }
+
     public boolean hasDailyLimit() {
         return dailyLimitMinutes > 0;
     }
@@ -146,53 +206,13 @@ public class BlockedApp {
         }
     }
 
-    public boolean isScheduleAllowed(LocalTime now) {
-        if (allowedIntervals == null || allowedIntervals.isBlank()) {
-            return true;
-        }
-        DateTimeFormatter fmt = DateTimeFormatter.ofPattern("HH:mm");
-        return Arrays.stream(allowedIntervals.split(","))
-                .map(String::trim)
-                .filter(s -> !s.isEmpty())
-                .anyMatch(interval -> {
-                    String[] bounds = interval.split("-");
-                    if (bounds.length != 2) return false;
-                    try {
-                        LocalTime start = LocalTime.parse(bounds[0].trim(), fmt);
-                        LocalTime end = LocalTime.parse(bounds[1].trim(), fmt);
-                        if (start.equals(end)) {
-                            return true;
-                        }
-                        if (start.isBefore(end)) {
-                            return !now.isBefore(start) && !now.isAfter(end);
-                        }
-                        // interval peste miezul nopții
-                        return !now.isBefore(start) || !now.isAfter(end);
-                    } catch (DateTimeParseException ex) {
-                        return false;
-                    }
-                });
-    }
-
-    public boolean matchesExecutable(String command) {
-        if (command == null || command.isBlank()) {
-            return false;
-        }
-        String lower = command.toLowerCase();
-        if (exePath != null && !exePath.isBlank()) {
-            try {
-                String normalized = Paths.get(exePath).toAbsolutePath().normalize().toString().toLowerCase();
-                if (lower.equals(normalized) || lower.endsWith(normalized)) {
-                    return true;
-                }
-            } catch (InvalidPathException ignored) {
-            }
-        }
-        if (exeName != null && !exeName.isBlank()) {
-            String exeLower = exeName.toLowerCase();
-            return lower.endsWith("\\" + exeLower) || lower.endsWith("/" + exeLower) || lower.equals(exeLower);
-        }
-        return false;
+    public boolean isScheduleAllowed(LocalDateTime now) {
+        return schedule == null || schedule.isAllowed(now);
+    }
+
+    // Următorul moment în care se poate schimba rezultatul lui isScheduleAllowed (null = niciodată).
+    public LocalDateTime nextScheduleBoundary(LocalDateTime now) {
+        return schedule == null ? null : schedule.nextBoundary(now);
     }
 
     public String getUsageSummary() {
@@ -226,9 +246,16 @@ public class BlockedApp {
         if (exeName != null && !exeName.isBlank()) {
             return exeName;
         }
+        if (!isBlank(commandLinePattern)) {
+            return commandLinePattern;
+        }
         return "aplicație necunoscută";
     }
 
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
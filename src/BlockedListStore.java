@@ -1,104 +1,602 @@
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 // Format multi-tip:
-// APP|id|displayName|exeName|enabled|blockImmediately|exePath|dailyLimit|usageMillis|usageDate|allowedIntervals
-// WEB|id|title|urlPattern|enabled
+// APP|id|displayName|exeName|enabled|blockImmediately|exePath|dailyLimit|usageMillis|usageDate|allowedIntervals|commandLinePattern|contentSha256
+// WEB|id|title|urlPattern|enabled|dailyLimit|allowedIntervals
+//
+// blocked_apps.txt este instantaneul complet; modificările se adaugă în blocked_apps.journal:
+// ADD|<înregistrare>, UPD|<înregistrare>, DEL|APP|id, DEL|WEB|id, USE|id|usageDate|deltaMillis.
+// La încărcare jurnalul se reaplică peste instantaneu, iar când depășește COMPACT_THRESHOLD
+// este compactat în fundal într-un instantaneu nou. Prima linie din ambele fișiere este
+// "# GEN n"; un jurnal cu altă generație decât instantaneul a fost deja compactat și se ignoră.
+// Excepție: instantaneul notează în "# FOLDED bytes" cât din jurnalul generației anterioare a
+// cuprins; dacă aplicația s-a oprit după mutarea instantaneului, dar înainte de rescrierea
+// jurnalului, restul acelui jurnal se reaplică la încărcare și se rescrie cu generația nouă.
+//
+// Cu contoare atașate (setUsageCounters), utilizarea zilnică nu mai este scrisă în jurnal:
+// ea stă în usage_counters.bin și intră în instantaneu doar la compactare.
+//
+// Listele mari de site-uri importate stau separat, în blocked_sites.<n>.bin (vezi MappedSiteTable).
+// Formatul text WEB|... rămâne folosit pentru export și este acceptat la import, alături de
+// listele publice de blocare.
 public class BlockedListStore {
+    private static final long COMPACT_THRESHOLD = 64 * 1024;
+    private static final String GEN_PREFIX = "# GEN ";
+    private static final String FOLDED_PREFIX = "# FOLDED ";
+    private static final int USAGE_MILLIS = 8;
+    private static final int USAGE_DATE = 9;
+    // Numărul de câmpuri al înregistrărilor acceptate din jurnal: formatul curent și cel anterior
+    // (APP fără contentSha256, WEB fără program și limită), scrise de versiuni mai vechi.
+    private static final int APP_FIELDS = 13;
+    private static final int APP_FIELDS_V1 = 12;
+    private static final int WEB_FIELDS = 7;
+    private static final int WEB_FIELDS_V1 = 5;
+    private static final String SITE_TABLE_PREFIX = "blocked_sites.";
+    private static final String SITE_TABLE_SUFFIX = ".bin";
+
+    private final Path dir;
     private final Path dataFile;
+    private final Path journalFile;
+    private final ExecutorService compactor;
+    private volatile UsageCounters usageCounters;
+    // Starea persistată: cheie "APP:id" / "WEB:id" -> câmpurile înregistrării.
+    private Map<String, String[]> records;
+    private long generation;
+    private long journalBytes;
+    private boolean compacting;
 
     public BlockedListStore() {
         String appDir = System.getenv("APPDATA");
         if (appDir == null || appDir.isEmpty()) {
             appDir = System.getProperty("user.home");
         }
-        Path dir = Path.of(appDir, "ParentalControlApp");
+        dir = Path.of(appDir, "ParentalControlApp");
         try {
             Files.createDirectories(dir);
         } catch (IOException e) {
             // ignore
         }
         dataFile = dir.resolve("blocked_apps.txt");
+        journalFile = dir.resolve("blocked_apps.journal");
+        compactor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "StoreCompactor");
+            t.setDaemon(true);
+            return t;
+        });
     }
 
-    public List<BlockedApp> loadApps() throws IOException {
-        List<BlockedApp> list = new ArrayList<>();
-        if (!Files.exists(dataFile)) return list;
-        try (BufferedReader r = Files.newBufferedReader(dataFile, StandardCharsets.UTF_8)) {
-            String line;
-            while ((line = r.readLine()) != null) {
-                String[] parts = line.split("\\|", -1);
-                if (parts.length < 1) continue;
-                if ("WEB".equals(parts[0])) continue; // skip, handled in loadSites
-                BlockedApp b = parseApp(parts);
-                if (b != null) {
-                    b.resetDailyUsageIfNeeded();
-                    list.add(b);
-                }
-            }
+    public void setUsageCounters(UsageCounters usageCounters) {
+        this.usageCounters = usageCounters;
+    }
+
+    public static final class Contents {
+        private final List<BlockedApp> apps;
+        private final List<BlockedSite> sites;
+
+        private Contents(List<BlockedApp> apps, List<BlockedSite> sites) {
+            this.apps = apps;
+            this.sites = sites;
+        }
+
+        public List<BlockedApp> getApps() {
+            return apps;
+        }
+
+        public List<BlockedSite> getSites() {
+            return sites;
         }
-        return list;
     }
 
-    public List<BlockedSite> loadSites() throws IOException {
-        List<BlockedSite> list = new ArrayList<>();
-        if (!Files.exists(dataFile)) return list;
-        try (BufferedReader r = Files.newBufferedReader(dataFile, StandardCharsets.UTF_8)) {
-            String line;
-            while ((line = r.readLine()) != null) {
-                String[] parts = line.split("\\|", -1);
-                if (parts.length < 1) continue;
-                if (!"WEB".equals(parts[0])) continue;
-                if (parts.length < 5) continue;
+    // O singură trecere prin instantaneu și jurnal; aplicațiile și site-urile sunt returnate împreună.
+    public Contents load() throws IOException {
+        List<BlockedApp> apps = new ArrayList<>();
+        List<BlockedSite> sites = new ArrayList<>();
+        for (String[] parts : readState()) {
+            if ("WEB".equals(parts[0])) {
                 BlockedSite s = new BlockedSite();
                 s.setId(parts[1]);
                 s.setTitle(parts[2]);
                 s.setUrlPattern(parts[3]);
                 s.setEnabled("true".equalsIgnoreCase(parts[4]));
-                list.add(s);
-            }
-        }
-        return list;
-    }
-
-    public void save(List<BlockedApp> apps, List<BlockedSite> sites) throws IOException {
-        Path tmp = dataFile.resolveSibling("blocked_apps.txt.tmp");
-        try (BufferedWriter w = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
-             for (BlockedApp b : apps) {
-                String line = String.join("|",
-                        "APP",
-                        nullToEmpty(b.getId()),
-                        nullToEmpty(b.getDisplayName()),
-                        nullToEmpty(b.getExeName()),
-                        Boolean.toString(b.isEnabled()),
-                        Boolean.toString(b.isBlockImmediately()),
-                        nullToEmpty(b.getExePath()),
-                        Integer.toString(b.getDailyLimitMinutes()),
-                        Long.toString(b.getUsageMillisToday()),
-                        nullToEmpty(currentUsageDate(b)),
-                        nullToEmpty(b.getAllowedIntervals()));
-                w.write(line);
+                if (parts.length > 5) s.setDailyLimitMinutes(parseIntSafe(parts[5]));
+                if (parts.length > 6) s.loadAllowedIntervals(emptyToNull(parts[6]));
+                sites.add(s);
+                continue;
+            }
+            BlockedApp b = parseApp(parts);
+            if (b != null) {
+                b.resetDailyUsageIfNeeded();
+                apps.add(b);
+            }
+        }
+        return new Contents(apps, sites);
+    }
+
+    // Scrie în jurnal doar diferențele față de starea deja persistată.
+    public synchronized void save(List<BlockedApp> apps, List<BlockedSite> sites) throws IOException {
+        if (records == null) {
+            readState();
+        }
+        StringBuilder journal = new StringBuilder();
+        Set<String> present = new HashSet<>();
+        for (BlockedApp b : apps) {
+            String key = "APP:" + b.getId();
+            present.add(key);
+            String[] fields = appFields(b);
+            String[] old = records.get(key);
+            if (old == null) {
+                appendRecord(journal, "ADD", fields);
+            } else if (!sameExceptUsage(old, fields)) {
+                appendRecord(journal, "UPD", fields);
+            } else if (usageCounters != null) {
+                // utilizarea e deja persistată în fișierul de contoare
+                continue;
+            } else if (!Arrays.equals(old, fields)) {
+                appendUsage(journal, old, fields);
+            }
+            records.put(key, fields);
+        }
+        for (BlockedSite s : sites) {
+            String key = "WEB:" + s.getId();
+            present.add(key);
+            String[] fields = siteFields(s);
+            String[] old = records.get(key);
+            if (old == null) {
+                appendRecord(journal, "ADD", fields);
+            } else if (!Arrays.equals(old, fields)) {
+                appendRecord(journal, "UPD", fields);
+            }
+            records.put(key, fields);
+        }
+        records.entrySet().removeIf(e -> {
+            if (present.contains(e.getKey())) return false;
+            String[] fields = e.getValue();
+            journal.append("DEL|").append(fields[0]).append('|').append(fields[1]).append(System.lineSeparator());
+            return true;
+        });
+        if (journal.length() == 0) {
+            return;
+        }
+        if (journalBytes == 0) {
+            journal.insert(0, GEN_PREFIX + generation + System.lineSeparator());
+        }
+        byte[] bytes = journal.toString().getBytes(StandardCharsets.UTF_8);
+        Files.write(journalFile, bytes, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        journalBytes += bytes.length;
+        if (journalBytes > COMPACT_THRESHOLD && !compacting) {
+            compacting = true;
+            compactor.execute(this::compact);
+        }
+    }
+
+    // Rescrie instantaneul din starea curentă; înregistrările adăugate în jurnal între timp sunt păstrate.
+    private void compact() {
+        List<String[]> snapshot;
+        long foldedBytes;
+        long nextGeneration;
+        synchronized (this) {
+            snapshot = new ArrayList<>(records.values());
+            foldedBytes = journalBytes;
+            nextGeneration = generation + 1;
+            foldUsage(snapshot);
+        }
+        try {
+            Path tmp = dataFile.resolveSibling("blocked_apps.txt.tmp");
+            try (BufferedWriter w = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                w.write(GEN_PREFIX + nextGeneration);
+                w.newLine();
+                w.write(FOLDED_PREFIX + foldedBytes);
                 w.newLine();
+                for (String[] fields : snapshot) {
+                    w.write(String.join("|", fields));
+                    w.newLine();
+                }
+            }
+            synchronized (this) {
+                // după mutare, până la rescrierea jurnalului, coada lui e găsită la încărcare prin "# FOLDED"
+                Files.move(tmp, dataFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                generation = nextGeneration;
+                journalBytes = rewriteJournal(generation, readJournalTail(foldedBytes));
+            }
+        } catch (IOException ex) {
+            // jurnalul rămâne valabil; se reîncearcă la următoarea depășire a pragului
+        } finally {
+            synchronized (this) {
+                compacting = false;
+            }
+        }
+    }
+
+    // Cea mai nouă generație a listei importate; generațiile vechi sunt șterse dacă nu mai sunt mapate.
+    public MappedSiteTable openImportedSites() throws IOException {
+        long latest = latestSiteTableGeneration();
+        if (latest < 0) {
+            return MappedSiteTable.empty();
+        }
+        deleteOlderSiteTables(latest);
+        return MappedSiteTable.open(siteTableFile(latest));
+    }
+
+    // Un fișier mapat nu poate fi înlocuit pe Windows, așa că fiecare scriere creează o generație nouă.
+    public MappedSiteTable replaceImportedSites(Iterator<BlockedSite> sites) throws IOException {
+        MappedSiteTable.Builder builder = new MappedSiteTable.Builder();
+        while (sites.hasNext()) {
+            BlockedSite s = sites.next();
+            builder.add(s.getId(), s.getTitle(), s.getUrlPattern(), s.isEnabled());
+        }
+        return publishSiteTable(builder);
+    }
+
+    // Adaugă la lista importată un fișier citit în flux: linii WEB|id|titlu|url|activ (exportul propriu)
+    // sau liste hosts / domenii simple / adblock (vezi BlocklistImporter). Domeniile deja prezente se sar.
+    public MappedSiteTable importSiteList(Path source, MappedSiteTable current) throws IOException {
+        MappedSiteTable.Builder builder = new MappedSiteTable.Builder();
+        DomainSet seen = new DomainSet(Math.max(1024, current.size()));
+        for (int i = 0; i < current.size(); i++) {
+            String url = current.getUrlPattern(i);
+            String host = BlockedSite.extractHost(url);
+            if (host == null || seen.add(host)) {
+                builder.add(current.getId(i), current.getTitle(i), url, current.isEnabled(i));
             }
-            for (BlockedSite s : sites) {
-                String line = String.join("|",
-                        "WEB",
-                        nullToEmpty(s.getId()),
-                        nullToEmpty(s.getTitle()),
-                        nullToEmpty(s.getUrlPattern()),
-                        Boolean.toString(s.isEnabled()));
-                w.write(line);
+        }
+        try (BufferedReader r = Files.newBufferedReader(source, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = r.readLine()) != null) {
+                if (line.startsWith("WEB|")) {
+                    String[] parts = splitFields(line);
+                    String host = parts.length >= 5 ? BlockedSite.extractHost(parts[3]) : null;
+                    if (host != null && seen.add(host)) {
+                        builder.add(parts[1], parts[2], parts[3], "true".equalsIgnoreCase(parts[4]));
+                    }
+                    continue;
+                }
+                BlocklistImporter.parseLine(line, domain -> {
+                    if (seen.add(domain)) {
+                        builder.addDomain(domain);
+                    }
+                });
+            }
+        }
+        return publishSiteTable(builder);
+    }
+
+    private synchronized MappedSiteTable publishSiteTable(MappedSiteTable.Builder builder) throws IOException {
+        long next = latestSiteTableGeneration() + 1;
+        Path target = siteTableFile(next);
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        builder.write(tmp);
+        Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+        deleteOlderSiteTables(next);
+        return MappedSiteTable.open(target);
+    }
+
+    public void exportSitesText(MappedSiteTable table, Path target) throws IOException {
+        try (BufferedWriter w = Files.newBufferedWriter(target, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < table.size(); i++) {
+                w.write(String.join("|", siteFields(table.get(i))));
                 w.newLine();
             }
         }
-        Files.move(tmp, dataFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Path siteTableFile(long generation) {
+        return dir.resolve(SITE_TABLE_PREFIX + generation + SITE_TABLE_SUFFIX);
+    }
+
+    private long siteTableGeneration(Path file) {
+        String name = file.getFileName().toString();
+        return parseLongSafe(name.substring(SITE_TABLE_PREFIX.length(), name.length() - SITE_TABLE_SUFFIX.length()));
+    }
+
+    private long latestSiteTableGeneration() throws IOException {
+        long latest = -1;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, SITE_TABLE_PREFIX + "*" + SITE_TABLE_SUFFIX)) {
+            for (Path f : files) {
+                latest = Math.max(latest, siteTableGeneration(f));
+            }
+        }
+        return latest;
+    }
+
+    private void deleteOlderSiteTables(long keep) {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, SITE_TABLE_PREFIX + "*" + SITE_TABLE_SUFFIX)) {
+            for (Path f : files) {
+                if (siteTableGeneration(f) < keep) {
+                    try {
+                        Files.deleteIfExists(f);
+                    } catch (IOException ignored) {
+                        // încă mapat; se reîncearcă la următoarea pornire
+                    }
+                }
+            }
+        } catch (IOException ignored) {
+        }
+    }
+
+    // Copiază în instantaneu valorile curente din fișierul de contoare.
+    private void foldUsage(List<String[]> snapshot) {
+        UsageCounters counters = usageCounters;
+        if (counters == null) return;
+        String today = LocalDate.now().toString();
+        for (int i = 0; i < snapshot.size(); i++) {
+            String[] fields = snapshot.get(i);
+            if (!"APP".equals(fields[0]) || fields.length <= USAGE_DATE || !counters.contains(fields[1])) continue;
+            String[] folded = fields.clone();
+            folded[USAGE_MILLIS] = Long.toString(counters.getMillisToday(fields[1]));
+            folded[USAGE_DATE] = today;
+            snapshot.set(i, folded);
+            records.put("APP:" + fields[1], folded);
+        }
+    }
+
+    // Înlocuiește atomic jurnalul cu antetul generației date urmat de coadă; returnează lungimea lui.
+    private long rewriteJournal(long journalGeneration, byte[] tail) throws IOException {
+        if (tail.length == 0) {
+            Files.deleteIfExists(journalFile);
+            return 0;
+        }
+        Path journalTmp = journalFile.resolveSibling("blocked_apps.journal.tmp");
+        byte[] header = (GEN_PREFIX + journalGeneration + System.lineSeparator()).getBytes(StandardCharsets.UTF_8);
+        Files.write(journalTmp, header);
+        Files.write(journalTmp, tail, StandardOpenOption.APPEND);
+        Files.move(journalTmp, journalFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return header.length + tail.length;
+    }
+
+    private byte[] readJournalTail(long offset) throws IOException {
+        if (!Files.exists(journalFile)) return new byte[0];
+        try (InputStream in = Files.newInputStream(journalFile)) {
+            in.skipNBytes(offset);
+            return in.readAllBytes();
+        }
+    }
+
+    private synchronized List<String[]> readState() throws IOException {
+        Map<String, String[]> state = new LinkedHashMap<>();
+        long snapshotGeneration = 0;
+        long foldedBytes = -1;
+        if (Files.exists(dataFile)) {
+            try (BufferedReader r = Files.newBufferedReader(dataFile, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = r.readLine()) != null) {
+                    if (line.startsWith(GEN_PREFIX)) {
+                        snapshotGeneration = parseLongSafe(line.substring(GEN_PREFIX.length()).trim());
+                        continue;
+                    }
+                    if (line.startsWith(FOLDED_PREFIX)) {
+                        foldedBytes = parseLongSafe(line.substring(FOLDED_PREFIX.length()).trim());
+                        continue;
+                    }
+                    String[] parts = splitFields(line);
+                    if ("WEB".equals(parts[0])) {
+                        if (parts.length >= 5) state.put("WEB:" + parts[1], parts);
+                        continue;
+                    }
+                    BlockedApp b = parseApp(parts);
+                    if (b != null) {
+                        state.put("APP:" + b.getId(), "APP".equals(parts[0]) ? parts : appFields(b));
+                    }
+                }
+            }
+        }
+        long bytes = 0;
+        if (Files.exists(journalFile)) {
+            bytes = truncateTornTail(journalFile);
+            long journalGeneration;
+            try (BufferedReader r = Files.newBufferedReader(journalFile, StandardCharsets.UTF_8)) {
+                String header = r.readLine();
+                journalGeneration = header != null && header.startsWith(GEN_PREFIX)
+                        ? parseLongSafe(header.substring(GEN_PREFIX.length()).trim()) : -1;
+                if (journalGeneration == snapshotGeneration) {
+                    String line;
+                    while ((line = r.readLine()) != null) {
+                        replay(state, splitFields(line));
+                    }
+                }
+            }
+            if (journalGeneration != snapshotGeneration) {
+                if (journalGeneration >= 0 && journalGeneration == snapshotGeneration - 1
+                        && foldedBytes > 0 && foldedBytes <= bytes) {
+                    // compactare întreruptă între mutarea instantaneului și rescrierea jurnalului
+                    byte[] tail = readJournalTail(foldedBytes);
+                    try (BufferedReader r = new BufferedReader(new InputStreamReader(
+                            new ByteArrayInputStream(tail), StandardCharsets.UTF_8))) {
+                        String line;
+                        while ((line = r.readLine()) != null) {
+                            replay(state, splitFields(line));
+                        }
+                    }
+                    bytes = rewriteJournal(snapshotGeneration, tail);
+                } else {
+                    bytes = 0;
+                }
+            }
+            if (bytes == 0) {
+                // jurnal deja compactat sau fără antet complet: adăugările noi încep un fișier curat,
+                // altfel ar ajunge după conținutul vechi și ar fi ignorate la următoarea încărcare
+                Files.deleteIfExists(journalFile);
+            }
+        }
+        records = state;
+        generation = snapshotGeneration;
+        journalBytes = bytes;
+        return new ArrayList<>(state.values());
+    }
+
+    // Ultima linie fără terminator (scrisă parțial înainte de o oprire bruscă) este tăiată din
+    // fișier, ca următoarea adăugare să nu se lipească de ea. Returnează lungimea rămasă.
+    private static long truncateTornTail(Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = ch.size();
+            ByteBuffer buf = ByteBuffer.allocate(8192);
+            long end = size;
+            while (end > 0) {
+                int chunk = (int) Math.min(buf.capacity(), end);
+                buf.clear().limit(chunk);
+                long from = end - chunk;
+                while (buf.hasRemaining()) {
+                    if (ch.read(buf, from + buf.position()) < 0) break;
+                }
+                for (int i = chunk - 1; i >= 0; i--) {
+                    if (buf.get(i) == '\n') {
+                        long valid = from + i + 1;
+                        if (valid < size) ch.truncate(valid);
+                        return valid;
+                    }
+                }
+                end = from;
+            }
+            if (size > 0) ch.truncate(0);
+            return 0;
+        }
+    }
+
+    // Se aplică doar înregistrările cu numărul exact de câmpuri al unui format cunoscut;
+    // o linie coruptă în alt mod decât tăierea finală este ignorată, nu aplicată parțial.
+    private void replay(Map<String, String[]> state, String[] parts) {
+        switch (parts[0]) {
+            case "ADD":
+            case "UPD":
+                if (isCompleteRecord(parts)) {
+                    state.put(parts[1] + ":" + parts[2], Arrays.copyOfRange(parts, 1, parts.length));
+                }
+                break;
+            case "DEL":
+                if (parts.length == 3) {
+                    state.remove(parts[1] + ":" + parts[2]);
+                }
+                break;
+            case "USE":
+                if (parts.length == 4 && isLong(parts[3])) {
+                    String[] fields = state.get("APP:" + parts[1]);
+                    if (fields == null || fields.length <= USAGE_DATE) break;
+                    long delta = parseLongSafe(parts[3]);
+                    if (parts[2].equals(fields[USAGE_DATE])) {
+                        fields[USAGE_MILLIS] = Long.toString(parseLongSafe(fields[USAGE_MILLIS]) + delta);
+                    } else {
+                        fields[USAGE_DATE] = parts[2];
+                        fields[USAGE_MILLIS] = Long.toString(delta);
+                    }
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static boolean isCompleteRecord(String[] parts) {
+        if (parts.length < 2) return false;
+        int fields = parts.length - 1;
+        if ("APP".equals(parts[1])) return fields == APP_FIELDS || fields == APP_FIELDS_V1;
+        if ("WEB".equals(parts[1])) return fields == WEB_FIELDS || fields == WEB_FIELDS_V1;
+        return false;
+    }
+
+    private static boolean isLong(String value) {
+        try {
+            Long.parseLong(value);
+            return true;
+        } catch (NumberFormatException ex) {
+            return false;
+        }
+    }
+
+    // Echivalent cu line.split("\\|", -1): păstrează câmpurile goale de la final (allowedIntervals,
+    // contentSha256). Numără întâi separatorii, ca tabloul să fie alocat direct la mărimea exactă,
+    // fără ArrayList-ul intermediar și copia din split; contează la listele importate mari.
+    static String[] splitFields(String line) {
+        int count = 1;
+        for (int i = line.indexOf('|'); i >= 0; i = line.indexOf('|', i + 1)) {
+            count++;
+        }
+        String[] fields = new String[count];
+        int start = 0;
+        for (int f = 0; f < count - 1; f++) {
+            int end = line.indexOf('|', start);
+            fields[f] = line.substring(start, end);
+            start = end + 1;
+        }
+        fields[count - 1] = line.substring(start);
+        return fields;
+    }
+
+    private String[] appFields(BlockedApp b) {
+        return new String[]{
+                "APP",
+                nullToEmpty(b.getId()),
+                nullToEmpty(b.getDisplayName()),
+                nullToEmpty(b.getExeName()),
+                Boolean.toString(b.isEnabled()),
+                Boolean.toString(b.isBlockImmediately()),
+                nullToEmpty(b.getExePath()),
+                Integer.toString(b.getDailyLimitMinutes()),
+                Long.toString(b.getUsageMillisToday()),
+                nullToEmpty(currentUsageDate(b)),
+                nullToEmpty(b.getAllowedIntervals()),
+                nullToEmpty(b.getCommandLinePattern()),
+                nullToEmpty(b.getContentSha256())};
+    }
+
+    private String[] siteFields(BlockedSite s) {
+        return new String[]{
+                "WEB",
+                nullToEmpty(s.getId()),
+                nullToEmpty(s.getTitle()),
+                nullToEmpty(s.getUrlPattern()),
+                Boolean.toString(s.isEnabled()),
+                Integer.toString(s.getDailyLimitMinutes()),
+                nullToEmpty(s.getAllowedIntervals())};
+    }
+
+    private boolean sameExceptUsage(String[] a, String[] b) {
+        if (a.length != b.length) return false;
+        for (int i = 0; i < a.length; i++) {
+            if (i == USAGE_MILLIS || i == USAGE_DATE) continue;
+            if (!a[i].equals(b[i])) return false;
+        }
+        return true;
+    }
+
+    private void appendRecord(StringBuilder journal, String op, String[] fields) {
+        journal.append(op).append('|').append(String.join("|", fields)).append(System.lineSeparator());
+    }
+
+    private void appendUsage(StringBuilder journal, String[] old, String[] fields) {
+        long before = parseLongSafe(old[USAGE_MILLIS]);
+        long after = parseLongSafe(fields[USAGE_MILLIS]);
+        boolean sameDay = old[USAGE_DATE].equals(fields[USAGE_DATE]);
+        long value = sameDay ? after - before : after;
+        if (sameDay && value == 0) return;
+        if (sameDay && value < 0) {
+            appendRecord(journal, "UPD", fields);
+            return;
+        }
+        journal.append("USE|").append(fields[1]).append('|').append(fields[USAGE_DATE]).append('|')
+                .append(value).append(System.lineSeparator());
     }
 
     private String nullToEmpty(String s) {
@@ -143,7 +641,9 @@ public class BlockedListStore {
             if (parts.length > 7) b.setDailyLimitMinutes(parseIntSafe(parts[7]));
             if (parts.length > 8) b.setUsageMillisToday(parseLongSafe(parts[8]));
             if (parts.length > 9) b.setUsageDateIso(emptyToNull(parts[9]));
-            if (parts.length > 10) b.setAllowedIntervals(emptyToNull(parts[10]));
+            if (parts.length > 10) b.loadAllowedIntervals(emptyToNull(parts[10]));
+            if (parts.length > 11) b.setCommandLinePattern(emptyToNull(parts[11]));
+            if (parts.length > 12) b.setContentSha256(emptyToNull(parts[12]));
             return b;
         }
         // Fallback vechi: id|display|exe|enabled
@@ -1,3 +1,4 @@
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
@@ -8,12 +9,25 @@ public class BlockedSite {
     private String title;
     private String urlPattern;
     private boolean enabled;
+    private int dailyLimitMinutes;
+    private String allowedIntervals;
+    private AppSchedule schedule;
 
     public BlockedSite() {
         this.id = UUID.randomUUID().toString();
         this.enabled = true;
     }
 
+    public BlockedSite(BlockedSite other) {
+        this.id = other.id;
+        this.title = other.title;
+        this.urlPattern = other.urlPattern;
+        this.enabled = other.enabled;
+        this.dailyLimitMinutes = other.dailyLimitMinutes;
+        this.allowedIntervals = other.allowedIntervals;
+        this.schedule = other.schedule;
+    }
+
     public String getId() {
         return id;
     }
@@ -46,8 +60,56 @@ public class BlockedSite {
         this.enabled = enabled;
     }
 
+    public int getDailyLimitMinutes() {
+        return dailyLimitMinutes;
+    }
+
+    public void setDailyLimitMinutes(int dailyLimitMinutes) {
+        this.dailyLimitMinutes = Math.max(0, dailyLimitMinutes);
+    }
+
+    public boolean hasDailyLimit() {
+        return dailyLimitMinutes > 0;
+    }
+
+    public String getAllowedIntervals() {
+        return allowedIntervals;
+    }
+
+    // Aruncă IllegalArgumentException dacă textul nu este un program valid.
+    public void setAllowedIntervals(String allowedIntervals) {
+        this.schedule = isBlank(allowedIntervals) ? null : AppSchedule.parse(allowedIntervals);
+        this.allowedIntervals = allowedIntervals;
+    }
+
+    // Folosit la încărcare: intrările invalide din fișiere vechi nu permit accesul.
+    public void loadAllowedIntervals(String allowedIntervals) {
+        this.schedule = isBlank(allowedIntervals) ? null : AppSchedule.parseLenient(allowedIntervals);
+        this.allowedIntervals = allowedIntervals;
+    }
+
+    // Fără program și fără limită un site activ este blocat mereu; altfel este permis
+    // în intervalele programului până la epuizarea limitei zilnice.
+    public boolean isBlockedAt(LocalDateTime now, long usageMillisToday) {
+        if (!enabled) return false;
+        if (schedule == null && !hasDailyLimit()) return true;
+        if (schedule != null && !schedule.isAllowed(now)) return true;
+        return hasDailyLimit() && usageMillisToday >= dailyLimitMinutes * 60_000L;
+    }
+
+    // Următorul moment în care se poate schimba rezultatul programului (null = niciodată).
+    public LocalDateTime nextScheduleBoundary(LocalDateTime now) {
+        return schedule == null ? null : schedule.nextBoundary(now);
+    }
+
+    public String getScheduleSummary() {
+        String intervals = isBlank(allowedIntervals) ? "Oricând" : allowedIntervals;
+        return hasDailyLimit() ? intervals + ", " + dailyLimitMinutes + " min/zi" : intervals;
+    }
+
     public String getStatusLabel() {
-        return enabled ? "Blocat" : "Deblocat";
+        if (!enabled) return "Deblocat";
+        return schedule == null && !hasDailyLimit() ? "Blocat" : "Program";
     }
 
     public String getDisplayDomain() {
@@ -56,6 +118,11 @@ public class BlockedSite {
     }
 
     public List<String> getHostsForBlocking() {
+        return hostsForBlocking(urlPattern);
+    }
+
+    // Folosit și pentru listele importate, fără a crea câte un BlockedSite pentru fiecare intrare.
+    static List<String> hostsForBlocking(String urlPattern) {
         List<String> hosts = new ArrayList<>();
         String host = extractHost(urlPattern);
         if (host != null && !host.isBlank()) {
@@ -69,7 +136,7 @@ public class BlockedSite {
         return hosts;
     }
 
-    private String extractHost(String value) {
+    static String extractHost(String value) {
         if (value == null || value.isBlank()) {
             return null;
         }
@@ -86,7 +153,20 @@ public class BlockedSite {
         if (portIdx >= 0) {
             normalized = normalized.substring(0, portIdx);
         }
-        normalized = normalized.replaceAll("[^a-z0-9.-]", "");
+        // păstrează doar [a-z0-9.-], fără expresie regulată (apelat pentru fiecare linie la import)
+        StringBuilder host = null;
+        for (int i = 0; i < normalized.length(); i++) {
+            char c = normalized.charAt(i);
+            boolean allowed = (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') || c == '.' || c == '-';
+            if (!allowed && host == null) {
+                host = new StringBuilder(normalized.length()).append(normalized, 0, i);
+            } else if (allowed && host != null) {
+                host.append(c);
+            }
+        }
+        if (host != null) {
+            normalized = host.toString();
+        }
         if (normalized.isBlank()) {
             return null;
         }
@@ -105,4 +185,8 @@ public class BlockedSite {
     public int hashCode() {
         return Objects.hash(id);
     }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
 }
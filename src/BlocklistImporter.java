@@ -0,0 +1,84 @@
+import java.util.function.Consumer;
+
+// Interpretează liniile listelor de blocare; apelantul citește fișierul în flux (vezi
+// BlockedListStore.importSiteList), deci lista nu este niciodată încărcată întreagă în memorie:
+//   format hosts:   0.0.0.0 exemplu.com [alt.exemplu.com ...]
+//   domenii simple: exemplu.com
+//   stil adblock:   ||exemplu.com^  (excepțiile @@, regulile cosmetice ## și cele cu * sunt ignorate)
+// Fiecare domeniu trece prin BlockedSite.extractHost, la fel ca intrările adăugate manual.
+public final class BlocklistImporter {
+
+    private BlocklistImporter() {
+    }
+
+    // Apelează onDomain pentru fiecare domeniu de pe linie; returnează câte au fost găsite.
+    static int parseLine(String line, Consumer<String> onDomain) {
+        String trimmed = line.trim();
+        if (trimmed.isEmpty()) return 0;
+        char first = trimmed.charAt(0);
+        if (first == '#' || first == '!' || first == '[' || trimmed.startsWith("@@")) return 0;
+        if (trimmed.startsWith("||")) {
+            return parseAdblock(trimmed, onDomain);
+        }
+        if (trimmed.contains("##") || trimmed.contains("#@#") || trimmed.contains("#?#")) return 0;
+        int comment = trimmed.indexOf('#');
+        if (comment >= 0) {
+            trimmed = trimmed.substring(0, comment);
+        }
+        int emitted = 0;
+        int pos = 0;
+        boolean firstToken = true;
+        boolean hostsFormat = false;
+        while (pos < trimmed.length()) {
+            while (pos < trimmed.length() && Character.isWhitespace(trimmed.charAt(pos))) pos++;
+            int end = pos;
+            while (end < trimmed.length() && !Character.isWhitespace(trimmed.charAt(end))) end++;
+            if (end == pos) break;
+            String token = trimmed.substring(pos, end);
+            pos = end;
+            if (firstToken) {
+                firstToken = false;
+                if (isAddress(token)) {
+                    hostsFormat = true;
+                    continue;
+                }
+            }
+            if (emit(token, onDomain)) emitted++;
+            if (!hostsFormat) break;
+        }
+        return emitted;
+    }
+
+    private static int parseAdblock(String rule, Consumer<String> onDomain) {
+        int end = 2;
+        while (end < rule.length()) {
+            char c = rule.charAt(end);
+            if (c == '^' || c == '/' || c == '$' || c == '|' || c == ':') break;
+            if (c == '*') return 0;
+            end++;
+        }
+        // reguli cu opțiuni (ex. $third-party) blochează doar parțial domeniul
+        if (rule.indexOf('$', end) >= 0) return 0;
+        return emit(rule.substring(2, end), onDomain) ? 1 : 0;
+    }
+
+    private static boolean emit(String candidate, Consumer<String> onDomain) {
+        String host = BlockedSite.extractHost(candidate);
+        if (host == null || host.indexOf('.') <= 0 || host.endsWith(".") || isAddress(host)
+                || host.equals("localhost.localdomain")) {
+            return false;
+        }
+        onDomain.accept(host);
+        return true;
+    }
+
+    // Adresă IPv4 (doar cifre și puncte) sau IPv6 (conține ':').
+    private static boolean isAddress(String token) {
+        if (token.indexOf(':') >= 0) return true;
+        for (int i = 0; i < token.length(); i++) {
+            char c = token.charAt(i);
+            if (c != '.' && (c < '0' || c > '9')) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,149 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+// Linia de comandă a proceselor pe Windows, unde ProcessHandle.Info nu completează niciodată
+// arguments()/commandLine() pentru alte procese. O singură interogare WMI (Win32_Process.CommandLine,
+// prin PowerShell) citește toate procesele odată, pe un fir separat; rezultatul se memorează pe
+// ProcessHandle (pid + momentul pornirii), deci fiecare proces se interoghează cel mult o dată.
+// Procesele pentru care WMI nu întoarce nimic (protejate, terminate între timp) rămân cu
+// linia de comandă de rezervă, ca să nu fie cerute la nesfârșit.
+// Procesele pornite de aplicație (powershell.exe și conhost.exe ale interogării) nu se cer, iar
+// între două interogări trec cel puțin MIN_QUERY_INTERVAL_MILLIS, ca o rafală de procese noi să
+// nu țină PowerShell și WMI pornite aproape continuu.
+public class CommandLineResolver {
+    private static final boolean SUPPORTED = System.getProperty("os.name", "").toLowerCase().startsWith("windows");
+    private static final long QUERY_TIMEOUT_SECONDS = 30;
+    private static final long MIN_QUERY_INTERVAL_MILLIS = 5000;
+    private static final int MAX_PARENT_DEPTH = 8;
+    private static final long SELF_PID = ProcessHandle.current().pid();
+    private static final String QUERY = "[Console]::OutputEncoding = [Text.Encoding]::UTF8; "
+            + "Get-CimInstance Win32_Process -Property ProcessId,CommandLine | ForEach-Object { "
+            + "'' + $_.ProcessId + [char]9 + ($_.CommandLine -replace '[\\r\\n]', ' ') }";
+
+    private final Map<ProcessHandle, String> resolved = new ConcurrentHashMap<>();
+    // procesele cerute de la ultima interogare; interogarea următoare le rezolvă pe toate
+    private final Set<ProcessHandle> requested = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean queryScheduled = new AtomicBoolean();
+    private final ScheduledExecutorService worker = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "CommandLineResolver");
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY);
+        return t;
+    });
+    private volatile long lastQueryNanos = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(MIN_QUERY_INTERVAL_MILLIS);
+    private volatile Runnable onResolved = () -> { };
+    private volatile Consumer<String> logger = message -> { };
+
+    // Apelat (pe firul de interogare) o singură dată după fiecare interogare, nu pentru fiecare proces.
+    public void setOnResolved(Runnable onResolved) {
+        this.onResolved = onResolved == null ? () -> { } : onResolved;
+    }
+
+    public void setLogger(Consumer<String> logger) {
+        this.logger = logger == null ? message -> { } : logger;
+    }
+
+    // Linia de comandă memorată; null dacă încă nu e cunoscută (interogarea pornește în fundal).
+    // În afara Windows nu există interogare și se returnează direct valoarea de rezervă.
+    public String lookup(ProcessHandle handle, String fallback) {
+        if (!SUPPORTED) return fallback;
+        String value = resolved.get(handle);
+        if (value != null) return value;
+        if (!requested.contains(handle) && isOwnDescendant(handle)) {
+            value = fallbackFor(handle);
+            resolved.put(handle, value);
+            return value;
+        }
+        requested.add(handle);
+        if (queryScheduled.compareAndSet(false, true)) {
+            long sinceLast = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lastQueryNanos);
+            worker.schedule(this::query, Math.max(0, MIN_QUERY_INTERVAL_MILLIS - sinceLast), TimeUnit.MILLISECONDS);
+        }
+        return null;
+    }
+
+    // Urcă pe lanțul de părinți (doar pentru procese noi, o singură dată) în loc să enumere
+    // ProcessHandle.current().descendants(), care ar parcurge toate procesele la fiecare cerere.
+    private static boolean isOwnDescendant(ProcessHandle handle) {
+        ProcessHandle current = handle;
+        for (int depth = 0; depth < MAX_PARENT_DEPTH; depth++) {
+            ProcessHandle parent = current.parent().orElse(null);
+            if (parent == null) return false;
+            if (parent.pid() == SELF_PID) return true;
+            current = parent;
+        }
+        return false;
+    }
+
+    public void retainAlive(Set<ProcessHandle> alive) {
+        resolved.keySet().retainAll(alive);
+        requested.retainAll(alive);
+    }
+
+    private void query() {
+        // doar procesele cerute până acum: cele apărute în timpul interogării așteaptă următoarea
+        ProcessHandle[] batch = requested.toArray(new ProcessHandle[0]);
+        Map<Long, String> byPid = new HashMap<>();
+        try {
+            byPid = runQuery();
+        } catch (IOException ex) {
+            logger.accept("Nu pot citi liniile de comandă prin WMI: " + ex.getMessage());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        lastQueryNanos = System.nanoTime();
+        for (ProcessHandle handle : batch) {
+            requested.remove(handle);
+            String line = byPid.get(handle.pid());
+            // pid-ul poate fi refolosit între interogare și acum; atunci procesul cerut nu mai există
+            resolved.put(handle, line != null && handle.isAlive() ? line : fallbackFor(handle));
+        }
+        // cererile venite în timpul interogării așteaptă intervalul minim de la sfârșitul ei
+        queryScheduled.set(false);
+        if (!requested.isEmpty() && queryScheduled.compareAndSet(false, true)) {
+            worker.schedule(this::query, MIN_QUERY_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        }
+        if (batch.length > 0) onResolved.run();
+    }
+
+    private static String fallbackFor(ProcessHandle handle) {
+        return handle.info().command().orElse("");
+    }
+
+    private static Map<Long, String> runQuery() throws IOException, InterruptedException {
+        String encoded = Base64.getEncoder().encodeToString(QUERY.getBytes(StandardCharsets.UTF_16LE));
+        ProcessBuilder pb = new ProcessBuilder("powershell.exe", "-NoProfile", "-NonInteractive",
+                "-EncodedCommand", encoded);
+        pb.redirectError(ProcessBuilder.Redirect.DISCARD);
+        Process p = pb.start();
+        // o interogare blocată nu trebuie să țină firul ocupat; destroy pe un proces încheiat nu face nimic
+        CompletableFuture.delayedExecutor(QUERY_TIMEOUT_SECONDS, TimeUnit.SECONDS).execute(p::destroyForcibly);
+        Map<Long, String> byPid = new HashMap<>();
+        try (BufferedReader r = new BufferedReader(new InputStreamReader(p.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = r.readLine()) != null) {
+                int tab = line.indexOf('\t');
+                if (tab <= 0 || tab == line.length() - 1) continue;
+                try {
+                    byPid.put(Long.parseLong(line.substring(0, tab).trim()), line.substring(tab + 1));
+                } catch (NumberFormatException ignored) {
+                }
+            }
+        }
+        p.waitFor();
+        return byPid;
+    }
+}
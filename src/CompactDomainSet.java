@@ -0,0 +1,305 @@
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+// Mulțime imuabilă de domenii, comună pentru fișierul hosts, resolverul DNS și proxy.
+// Domeniile sunt păstrate cu etichetele inversate (www.exemplu.com -> com.exemplu.www),
+// sortate și codificate pe blocuri de câte BLOCK_SIZE cu prefix comun (front coding):
+// primul domeniu din bloc întreg, următoarele ca (lungime prefix comun, rest).
+// Un filtru Bloom (~10 biți pe domeniu) respinge rapid majoritatea numelor nelistate.
+// Verificarea după sufix ("este blocat un domeniu părinte?") face câte o căutare pe etichetă.
+public final class CompactDomainSet {
+    private static final int BLOCK_SIZE = 16;
+    private static final int BLOOM_BITS_PER_ENTRY = 10;
+    private static final int BLOOM_HASHES = 7;
+    private static final int MAX_DOMAIN = 255;
+    private static final CompactDomainSet EMPTY = new CompactDomainSet(new byte[0], new int[0], 0, new long[1]);
+
+    private final byte[] data;
+    private final int[] blockOffsets;
+    private final int size;
+    private final long[] bloom;
+
+    private CompactDomainSet(byte[] data, int[] blockOffsets, int size, long[] bloom) {
+        this.data = data;
+        this.blockOffsets = blockOffsets;
+        this.size = size;
+        this.bloom = bloom;
+    }
+
+    public static CompactDomainSet empty() {
+        return EMPTY;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Memoria ocupată de structură, în octeți (pentru jurnal).
+    public long sizeInBytes() {
+        return data.length + blockOffsets.length * 4L + bloom.length * 8L;
+    }
+
+    public boolean contains(String domain) {
+        byte[] key = reverse(domain);
+        return key != null && containsReversed(key, key.length);
+    }
+
+    // true dacă domeniul sau unul dintre părinții lui este în mulțime.
+    public boolean containsSuffix(String domain) {
+        byte[] key = reverse(domain);
+        if (key == null) return false;
+        for (int end = 1; end <= key.length; end++) {
+            if ((end == key.length || key[end] == '.') && containsReversed(key, end)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Parcurge domeniile (în forma normală) în ordinea sortării inversate.
+    public void forEach(Consumer<String> action) {
+        byte[] current = new byte[MAX_DOMAIN];
+        byte[] out = new byte[MAX_DOMAIN];
+        int remaining = size;
+        for (int block = 0; block < blockOffsets.length; block++) {
+            int p = blockOffsets[block];
+            for (int i = 0; i < BLOCK_SIZE && remaining > 0; i++, remaining--) {
+                int shared = i == 0 ? 0 : data[p++] & 0xFF;
+                int rest = data[p++] & 0xFF;
+                System.arraycopy(data, p, current, shared, rest);
+                p += rest;
+                action.accept(unreverse(current, shared + rest, out));
+            }
+        }
+    }
+
+    private boolean containsReversed(byte[] key, int keyLength) {
+        if (size == 0 || !mightContain(key, keyLength)) return false;
+        // ultimul bloc al cărui prim domeniu este <= cheia
+        int lo = 0;
+        int hi = blockOffsets.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            int p = blockOffsets[mid];
+            if (compare(data, p + 1, data[p] & 0xFF, key, keyLength) <= 0) lo = mid;
+            else hi = mid - 1;
+        }
+        byte[] current = new byte[MAX_DOMAIN];
+        int p = blockOffsets[lo];
+        int entries = Math.min(BLOCK_SIZE, size - lo * BLOCK_SIZE);
+        for (int i = 0; i < entries; i++) {
+            int shared = i == 0 ? 0 : data[p++] & 0xFF;
+            int rest = data[p++] & 0xFF;
+            System.arraycopy(data, p, current, shared, rest);
+            p += rest;
+            int cmp = compare(current, 0, shared + rest, key, keyLength);
+            if (cmp == 0) return true;
+            if (cmp > 0) return false;
+        }
+        return false;
+    }
+
+    private boolean mightContain(byte[] key, int length) {
+        long h = hash(key, 0, length);
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32) | 1;
+        long bits = bloom.length * 64L;
+        for (int i = 0; i < BLOOM_HASHES; i++) {
+            long bit = ((h1 + i * (long) h2) & 0x7FFFFFFFFFFFFFFFL) % bits;
+            if ((bloom[(int) (bit >>> 6)] & (1L << bit)) == 0) return false;
+        }
+        return true;
+    }
+
+    private static long hash(byte[] key, int from, int length) {
+        long h = 0xCBF29CE484222325L;
+        for (int i = from; i < from + length; i++) {
+            h = (h ^ key[i]) * 0x100000001B3L;
+        }
+        return h ^ (h >>> 29);
+    }
+
+    private static int compare(byte[] a, int aFrom, int aLength, byte[] b, int bLength) {
+        int n = Math.min(aLength, bLength);
+        for (int i = 0; i < n; i++) {
+            int diff = (a[aFrom + i] & 0xFF) - (b[i] & 0xFF);
+            if (diff != 0) return diff;
+        }
+        return aLength - bLength;
+    }
+
+    // "www.exemplu.com" -> octeții "com.exemplu.www"; null pentru nume goale sau prea lungi.
+    private static byte[] reverse(String domain) {
+        if (domain == null) return null;
+        int start = 0;
+        int end = domain.length();
+        while (start < end && domain.charAt(start) == '.') start++;
+        while (end > start && domain.charAt(end - 1) == '.') end--;
+        int length = end - start;
+        if (length == 0 || length > MAX_DOMAIN) return null;
+        byte[] out = new byte[length];
+        int o = 0;
+        int labelEnd = end;
+        for (int i = end - 1; i >= start - 1; i--) {
+            if (i < start || domain.charAt(i) == '.') {
+                if (o > 0) out[o++] = '.';
+                for (int j = i + 1; j < labelEnd; j++) {
+                    out[o++] = (byte) Character.toLowerCase(domain.charAt(j));
+                }
+                labelEnd = i;
+            }
+        }
+        return out;
+    }
+
+    private static String unreverse(byte[] reversed, int length, byte[] out) {
+        int o = 0;
+        int labelEnd = length;
+        for (int i = length - 1; i >= -1; i--) {
+            if (i < 0 || reversed[i] == '.') {
+                if (o > 0) out[o++] = '.';
+                System.arraycopy(reversed, i + 1, out, o, labelEnd - i - 1);
+                o += labelEnd - i - 1;
+                labelEnd = i;
+            }
+        }
+        return new String(out, 0, o, StandardCharsets.US_ASCII);
+    }
+
+    // Adună domeniile într-un singur tablou de octeți, apoi le sortează prin indici, fără obiecte per domeniu.
+    public static final class Builder {
+        private byte[] arena;
+        private int arenaSize;
+        private int[] starts;
+        private int[] lengths;
+        private int count;
+
+        public Builder(int expected) {
+            int capacity = Math.max(16, expected);
+            arena = new byte[capacity * 16];
+            starts = new int[capacity];
+            lengths = new int[capacity];
+        }
+
+        public Builder add(String domain) {
+            byte[] key = reverse(domain);
+            if (key == null) return this;
+            if (count == starts.length) {
+                starts = Arrays.copyOf(starts, count * 2);
+                lengths = Arrays.copyOf(lengths, count * 2);
+            }
+            if (arenaSize + key.length > arena.length) {
+                arena = Arrays.copyOf(arena, Math.max(arena.length * 2, arenaSize + key.length));
+            }
+            System.arraycopy(key, 0, arena, arenaSize, key.length);
+            starts[count] = arenaSize;
+            lengths[count] = key.length;
+            arenaSize += key.length;
+            count++;
+            return this;
+        }
+
+        public CompactDomainSet build() {
+            if (count == 0) return EMPTY;
+            int[] order = new int[count];
+            for (int i = 0; i < count; i++) order[i] = i;
+            sort(order, 0, count - 1);
+
+            byte[] out = new byte[arenaSize + count * 2];
+            int[] blocks = new int[(count + BLOCK_SIZE - 1) / BLOCK_SIZE];
+            int o = 0;
+            int unique = 0;
+            int previous = -1;
+            for (int i = 0; i < count; i++) {
+                int e = order[i];
+                if (previous >= 0 && compareEntries(previous, e) == 0) continue;
+                if (unique % BLOCK_SIZE == 0) {
+                    blocks[unique / BLOCK_SIZE] = o;
+                    out[o++] = (byte) lengths[e];
+                    System.arraycopy(arena, starts[e], out, o, lengths[e]);
+                    o += lengths[e];
+                } else {
+                    int shared = sharedPrefix(previous, e);
+                    out[o++] = (byte) shared;
+                    out[o++] = (byte) (lengths[e] - shared);
+                    System.arraycopy(arena, starts[e] + shared, out, o, lengths[e] - shared);
+                    o += lengths[e] - shared;
+                }
+                previous = e;
+                unique++;
+            }
+            int blockCount = (unique + BLOCK_SIZE - 1) / BLOCK_SIZE;
+            long[] bloom = new long[Math.max(1, (unique * BLOOM_BITS_PER_ENTRY + 63) / 64)];
+            long bits = bloom.length * 64L;
+            previous = -1;
+            for (int i = 0; i < count; i++) {
+                int e = order[i];
+                if (previous >= 0 && compareEntries(previous, e) == 0) continue;
+                long h = hash(arena, starts[e], lengths[e]);
+                int h1 = (int) h;
+                int h2 = (int) (h >>> 32) | 1;
+                for (int k = 0; k < BLOOM_HASHES; k++) {
+                    long bit = ((h1 + k * (long) h2) & 0x7FFFFFFFFFFFFFFFL) % bits;
+                    bloom[(int) (bit >>> 6)] |= 1L << bit;
+                }
+                previous = e;
+            }
+            return new CompactDomainSet(Arrays.copyOf(out, o), Arrays.copyOf(blocks, blockCount), unique, bloom);
+        }
+
+        private int compareEntries(int a, int b) {
+            int n = Math.min(lengths[a], lengths[b]);
+            for (int i = 0; i < n; i++) {
+                int diff = (arena[starts[a] + i] & 0xFF) - (arena[starts[b] + i] & 0xFF);
+                if (diff != 0) return diff;
+            }
+            return lengths[a] - lengths[b];
+        }
+
+        private int sharedPrefix(int a, int b) {
+            int n = Math.min(lengths[a], lengths[b]);
+            int i = 0;
+            while (i < n && arena[starts[a] + i] == arena[starts[b] + i]) i++;
+            return i;
+        }
+
+        // Quicksort pe indici; intervalele mici se termină prin inserție.
+        private void sort(int[] order, int lo, int hi) {
+            while (hi - lo > 16) {
+                int mid = (lo + hi) >>> 1;
+                int pivot = order[mid];
+                int i = lo;
+                int j = hi;
+                while (i <= j) {
+                    while (compareEntries(order[i], pivot) < 0) i++;
+                    while (compareEntries(order[j], pivot) > 0) j--;
+                    if (i <= j) {
+                        int t = order[i];
+                        order[i] = order[j];
+                        order[j] = t;
+                        i++;
+                        j--;
+                    }
+                }
+                // recursivitate pe partea mai mică, buclă pe cea mare: adâncime logaritmică
+                if (j - lo < hi - i) {
+                    sort(order, lo, j);
+                    lo = i;
+                } else {
+                    sort(order, i, hi);
+                    hi = j;
+                }
+            }
+            for (int i = lo + 1; i <= hi; i++) {
+                int value = order[i];
+                int j = i - 1;
+                while (j >= lo && compareEntries(order[j], value) > 0) {
+                    order[j + 1] = order[j];
+                    j--;
+                }
+                order[j + 1] = value;
+            }
+        }
+    }
+}
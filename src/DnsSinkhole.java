@@ -0,0 +1,406 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.security.SecureRandom;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+// Resolver DNS local (UDP, NIO neblocant, un singur fir): numele blocate primesc adresa
+// de redirecționare (A 0.0.0.0, AAAA ::) sau NXDOMAIN, restul se trimit la serverul
+// configurat. Răspunsurile din amonte sunt păstrate într-un cache LRU limitat, cât timp
+// permite cel mai mic TTL din ele; la servire TTL-urile sunt scăzute cu timpul trecut.
+// Id-urile cererilor spre amonte sunt aleatoare, iar un răspuns se acceptă doar dacă vine de la
+// serverul configurat și repetă întrebarea trimisă, ca un răspuns fals să nu ajungă în cache.
+// Nu există TCP: un răspuns trunchiat (TC) ajunge la client așa cum e, necachat, iar reîncercarea
+// clientului prin TCP la 127.0.0.1:53 eșuează; numele cu răspunsuri foarte mari (rare pentru A/AAAA)
+// nu se rezolvă prin resolverul local.
+public class DnsSinkhole {
+    private static final int MAX_PACKET = 4096;
+    private static final int CACHE_CAPACITY = 10_000;
+    private static final long MAX_CACHE_TTL_SECONDS = 3600;
+    private static final long UPSTREAM_TIMEOUT_MILLIS = 5000;
+    private static final int BLOCKED_TTL_SECONDS = 60;
+    private static final int TYPE_A = 1;
+    private static final int TYPE_AAAA = 28;
+
+    private final InetSocketAddress listenAddress;
+    private final InetSocketAddress upstream;
+    private final Consumer<String> logger;
+    private volatile SiteRules blocked = SiteRules.empty();
+    private final Map<String, CachedAnswer> cache = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedAnswer> eldest) {
+            return size() > CACHE_CAPACITY;
+        }
+    };
+    private final Map<Integer, PendingQuery> pending = new HashMap<>();
+    private final SecureRandom random = new SecureRandom();
+    private Selector selector;
+    private DatagramChannel clientChannel;
+    private DatagramChannel upstreamChannel;
+    private Thread worker;
+    private volatile boolean running;
+
+    private static final class CachedAnswer {
+        private final byte[] response;
+        private final int[] ttlOffsets;
+        private final long storedAtMillis;
+        private final long expiresAtMillis;
+
+        private CachedAnswer(byte[] response, int[] ttlOffsets, long storedAtMillis, long expiresAtMillis) {
+            this.response = response;
+            this.ttlOffsets = ttlOffsets;
+            this.storedAtMillis = storedAtMillis;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+
+    private static final class PendingQuery {
+        private final SocketAddress client;
+        private final int clientId;
+        private final String cacheKey;
+        private final long sentAtMillis;
+
+        private PendingQuery(SocketAddress client, int clientId, String cacheKey, long sentAtMillis) {
+            this.client = client;
+            this.clientId = clientId;
+            this.cacheKey = cacheKey;
+            this.sentAtMillis = sentAtMillis;
+        }
+    }
+
+    // Întrebarea unui pachet: nume, tip, clasă și unde se termină secțiunea.
+    private static final class Question {
+        private final String name;
+        private final int type;
+        private final int qclass;
+        private final int end;
+
+        private Question(String name, int type, int qclass, int end) {
+            this.name = name;
+            this.type = type;
+            this.qclass = qclass;
+            this.end = end;
+        }
+
+        private String cacheKey() {
+            return name + "/" + type + "/" + qclass;
+        }
+    }
+
+    public DnsSinkhole(InetSocketAddress listenAddress, InetSocketAddress upstream, Consumer<String> logger) {
+        this.listenAddress = listenAddress;
+        this.upstream = upstream;
+        this.logger = logger;
+    }
+
+    public void setBlocked(SiteRules blocked) {
+        this.blocked = blocked;
+    }
+
+    public synchronized void start() throws IOException {
+        if (running) return;
+        selector = Selector.open();
+        try {
+            clientChannel = DatagramChannel.open();
+            clientChannel.bind(listenAddress);
+            clientChannel.configureBlocking(false);
+            clientChannel.register(selector, SelectionKey.OP_READ);
+            upstreamChannel = DatagramChannel.open();
+            upstreamChannel.bind(null);
+            upstreamChannel.configureBlocking(false);
+            upstreamChannel.register(selector, SelectionKey.OP_READ);
+        } catch (IOException | RuntimeException ex) {
+            // portul 53 ocupat sau fără drepturi: nimic nu rămâne deschis
+            if (clientChannel != null) clientChannel.close();
+            if (upstreamChannel != null) upstreamChannel.close();
+            selector.close();
+            clientChannel = null;
+            upstreamChannel = null;
+            throw ex;
+        }
+        running = true;
+        worker = new Thread(this::loop, "DnsSinkhole");
+        worker.setDaemon(true);
+        worker.start();
+        log("Resolver DNS local pornit pe " + getLocalAddress() + ", amonte " + upstream);
+    }
+
+    public synchronized void stop() {
+        if (!running) return;
+        running = false;
+        selector.wakeup();
+        try {
+            worker.join(1000);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        closeQuietly();
+        log("Resolver DNS local oprit.");
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public InetSocketAddress getLocalAddress() {
+        try {
+            return (InetSocketAddress) clientChannel.getLocalAddress();
+        } catch (IOException | RuntimeException ex) {
+            return listenAddress;
+        }
+    }
+
+    private void loop() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(MAX_PACKET);
+        byte[] packet = new byte[MAX_PACKET];
+        while (running) {
+            try {
+                selector.select(1000);
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    DatagramChannel channel = (DatagramChannel) key.channel();
+                    SocketAddress from;
+                    while ((from = receive(channel, buffer)) != null) {
+                        int length = buffer.remaining();
+                        buffer.get(packet, 0, length);
+                        if (channel == clientChannel) {
+                            onQuery(from, packet, length);
+                        } else if (from.equals(upstream)) {
+                            onUpstreamAnswer(packet, length);
+                        }
+                    }
+                }
+                expirePending();
+            } catch (IOException | RuntimeException ex) {
+                if (running) log("Eroare resolver DNS: " + ex.getMessage());
+            }
+        }
+    }
+
+    private static SocketAddress receive(DatagramChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.clear();
+        SocketAddress from = channel.receive(buffer);
+        buffer.flip();
+        return from;
+    }
+
+    private void onQuery(SocketAddress client, byte[] packet, int length) throws IOException {
+        Question q = parseQuestion(packet, length);
+        if (q == null) return;
+        int id = readShort(packet, 0);
+        if (blocked.blocksHost(q.name.toLowerCase())) {
+            send(clientChannel, blockedAnswer(packet, q), client);
+            return;
+        }
+        String key = q.cacheKey();
+        CachedAnswer cached = cache.get(key);
+        long now = System.currentTimeMillis();
+        if (cached != null) {
+            if (cached.expiresAtMillis > now) {
+                send(clientChannel, fromCache(cached, id, now), client);
+                return;
+            }
+            cache.remove(key);
+        }
+        int upstreamId = nextUpstreamId();
+        byte[] forwarded = new byte[length];
+        System.arraycopy(packet, 0, forwarded, 0, length);
+        writeShort(forwarded, 0, upstreamId);
+        pending.put(upstreamId, new PendingQuery(client, id, key, now));
+        send(upstreamChannel, forwarded, upstream);
+    }
+
+    private void onUpstreamAnswer(byte[] packet, int length) throws IOException {
+        if (length < 12 || (readShort(packet, 2) & 0x8000) == 0) return;
+        int upstreamId = readShort(packet, 0);
+        PendingQuery query = pending.get(upstreamId);
+        if (query == null) return;
+        // un răspuns cu id-ul ghicit dar altă întrebare se ignoră; cererea reală rămâne în așteptare
+        Question q = readQuestion(packet, length);
+        if (q == null || !q.cacheKey().equals(query.cacheKey)) return;
+        pending.remove(upstreamId);
+        byte[] answer = new byte[length];
+        System.arraycopy(packet, 0, answer, 0, length);
+        writeShort(answer, 0, query.clientId);
+        send(clientChannel, answer, query.client);
+        cacheAnswer(query.cacheKey, answer);
+    }
+
+    // Se păstrează doar răspunsurile reușite (NOERROR, netrunchiate), cât permite cel mai mic TTL.
+    private void cacheAnswer(String key, byte[] answer) {
+        int flags = readShort(answer, 2);
+        if ((flags & 0x000F) != 0 || (flags & 0x0200) != 0) return;
+        int[] ttlOffsets = ttlOffsets(answer);
+        if (ttlOffsets == null || ttlOffsets.length == 0) return;
+        long minTtl = MAX_CACHE_TTL_SECONDS;
+        for (int offset : ttlOffsets) {
+            minTtl = Math.min(minTtl, readInt(answer, offset) & 0xFFFFFFFFL);
+        }
+        if (minTtl <= 0) return;
+        long now = System.currentTimeMillis();
+        cache.put(key, new CachedAnswer(answer, ttlOffsets, now, now + minTtl * 1000));
+    }
+
+    private static byte[] fromCache(CachedAnswer cached, int id, long now) {
+        byte[] copy = cached.response.clone();
+        writeShort(copy, 0, id);
+        long elapsed = (now - cached.storedAtMillis) / 1000;
+        for (int offset : cached.ttlOffsets) {
+            long ttl = readInt(copy, offset) & 0xFFFFFFFFL;
+            writeInt(copy, offset, (int) Math.max(0, ttl - elapsed));
+        }
+        return copy;
+    }
+
+    private byte[] blockedAnswer(byte[] query, Question q) {
+        boolean address = q.type == TYPE_A || q.type == TYPE_AAAA;
+        int rdLength = q.type == TYPE_A ? 4 : 16;
+        byte[] out = new byte[q.end + (address ? 12 + rdLength : 0)];
+        System.arraycopy(query, 0, out, 0, q.end);
+        int rd = readShort(query, 2) & 0x0100;
+        // QR=1, AA=1, RD copiat, RA=1, RCODE = 0 (adresă nulă) sau 3 (NXDOMAIN)
+        writeShort(out, 2, 0x8000 | 0x0400 | rd | 0x0080 | (address ? 0 : 3));
+        writeShort(out, 4, 1);
+        writeShort(out, 6, address ? 1 : 0);
+        writeShort(out, 8, 0);
+        writeShort(out, 10, 0);
+        if (address) {
+            int p = q.end;
+            writeShort(out, p, 0xC00C); // pointer la numele din întrebare
+            writeShort(out, p + 2, q.type);
+            writeShort(out, p + 4, q.qclass);
+            writeInt(out, p + 6, BLOCKED_TTL_SECONDS);
+            writeShort(out, p + 10, rdLength);
+            // datele rămân zero: 0.0.0.0 sau ::
+        }
+        return out;
+    }
+
+    private void expirePending() {
+        long now = System.currentTimeMillis();
+        pending.values().removeIf(q -> now - q.sentAtMillis > UPSTREAM_TIMEOUT_MILLIS);
+    }
+
+    // Id aleator, nefolosit de altă cerere în așteptare; un id previzibil ar permite unui
+    // terț să trimită primul un răspuns fals.
+    private int nextUpstreamId() {
+        int id = random.nextInt(0x10000);
+        for (int i = 0; i < 64 && pending.containsKey(id); i++) {
+            id = random.nextInt(0x10000);
+        }
+        // aproape toate id-urile ocupate: cererea veche cu același id se pierde
+        pending.remove(id);
+        return id;
+    }
+
+    private static void send(DatagramChannel channel, byte[] data, SocketAddress to) throws IOException {
+        channel.send(ByteBuffer.wrap(data), to);
+    }
+
+    private static Question parseQuestion(byte[] packet, int length) {
+        if (length < 12 || (readShort(packet, 2) & 0x8000) != 0) return null;
+        return readQuestion(packet, length);
+    }
+
+    // Singura întrebare din pachet, cerere sau răspuns.
+    private static Question readQuestion(byte[] packet, int length) {
+        if (length < 12 || readShort(packet, 4) != 1) return null;
+        StringBuilder name = new StringBuilder();
+        int p = 12;
+        while (true) {
+            if (p >= length) return null;
+            int labelLength = packet[p] & 0xFF;
+            if (labelLength == 0) {
+                p++;
+                break;
+            }
+            if (labelLength > 63 || p + 1 + labelLength > length) return null;
+            if (name.length() > 0) name.append('.');
+            for (int i = 0; i < labelLength; i++) {
+                name.append(Character.toLowerCase((char) (packet[p + 1 + i] & 0xFF)));
+            }
+            p += 1 + labelLength;
+        }
+        if (p + 4 > length) return null;
+        return new Question(name.toString(), readShort(packet, p), readShort(packet, p + 2), p + 4);
+    }
+
+    // Pozițiile câmpurilor TTL din toate înregistrările (OPT din EDNS nu are TTL real și se sare).
+    private static int[] ttlOffsets(byte[] packet) {
+        int questions = readShort(packet, 4);
+        int records = readShort(packet, 6) + readShort(packet, 8) + readShort(packet, 10);
+        int p = 12;
+        for (int i = 0; i < questions; i++) {
+            p = skipName(packet, p);
+            if (p < 0) return null;
+            p += 4;
+        }
+        int[] offsets = new int[records];
+        int count = 0;
+        for (int i = 0; i < records; i++) {
+            p = skipName(packet, p);
+            if (p < 0 || p + 10 > packet.length) return null;
+            int type = readShort(packet, p);
+            if (type != 41) offsets[count++] = p + 4;
+            p += 10 + readShort(packet, p + 8);
+        }
+        if (p > packet.length) return null;
+        int[] result = new int[count];
+        System.arraycopy(offsets, 0, result, 0, count);
+        return result;
+    }
+
+    private static int skipName(byte[] packet, int p) {
+        while (p < packet.length) {
+            int len = packet[p] & 0xFF;
+            if (len == 0) return p + 1;
+            if ((len & 0xC0) == 0xC0) return p + 2;
+            p += 1 + len;
+        }
+        return -1;
+    }
+
+    private static int readShort(byte[] b, int p) {
+        return ((b[p] & 0xFF) << 8) | (b[p + 1] & 0xFF);
+    }
+
+    private static void writeShort(byte[] b, int p, int v) {
+        b[p] = (byte) (v >>> 8);
+        b[p + 1] = (byte) v;
+    }
+
+    private static int readInt(byte[] b, int p) {
+        return (readShort(b, p) << 16) | readShort(b, p + 2);
+    }
+
+    private static void writeInt(byte[] b, int p, int v) {
+        writeShort(b, p, v >>> 16);
+        writeShort(b, p + 2, v);
+    }
+
+    private void closeQuietly() {
+        try {
+            if (clientChannel != null) clientChannel.close();
+            if (upstreamChannel != null) upstreamChannel.close();
+            if (selector != null) selector.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private void log(String msg) {
+        try {
+            logger.accept(msg);
+        } catch (Exception ignored) {
+        }
+    }
+}
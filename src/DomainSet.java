@@ -0,0 +1,114 @@
+import java.util.Arrays;
+
+// Mulțime de domenii fără câte un obiect String pe element: octeții ASCII ai domeniilor
+// stau într-un singur tablou, iar tabela cu adresare deschisă reține doar indici.
+// Domeniile trebuie să fie deja normalizate (vezi BlockedSite.extractHost): [a-z0-9.-].
+public final class DomainSet {
+    private byte[] data;
+    private int dataSize;
+    private int[] starts;
+    private int[] hashes;
+    private int count;
+    // 0 = slot liber, altfel indicele elementului + 1
+    private int[] table;
+
+    public DomainSet() {
+        this(1024);
+    }
+
+    public DomainSet(int expected) {
+        int capacity = Math.max(16, expected);
+        data = new byte[capacity * 16];
+        starts = new int[capacity];
+        hashes = new int[capacity];
+        table = new int[Integer.highestOneBit(capacity * 2 - 1) << 1];
+    }
+
+    public int size() {
+        return count;
+    }
+
+    // true dacă domeniul nu exista deja.
+    public boolean add(CharSequence domain) {
+        int hash = hash(domain);
+        int mask = table.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int entry = table[slot];
+            if (entry == 0) {
+                insert(slot, domain, hash);
+                return true;
+            }
+            if (hashes[entry - 1] == hash && equalsAt(entry - 1, domain)) {
+                return false;
+            }
+        }
+    }
+
+    public boolean contains(CharSequence domain) {
+        int hash = hash(domain);
+        int mask = table.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int entry = table[slot];
+            if (entry == 0) return false;
+            if (hashes[entry - 1] == hash && equalsAt(entry - 1, domain)) return true;
+        }
+    }
+
+    private void insert(int slot, CharSequence domain, int hash) {
+        if (count == starts.length) {
+            starts = Arrays.copyOf(starts, count * 2);
+            hashes = Arrays.copyOf(hashes, count * 2);
+        }
+        int length = domain.length();
+        if (dataSize + length > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, dataSize + length));
+        }
+        for (int i = 0; i < length; i++) {
+            data[dataSize + i] = (byte) domain.charAt(i);
+        }
+        starts[count] = dataSize;
+        hashes[count] = hash;
+        dataSize += length;
+        count++;
+        table[slot] = count;
+        // factor de încărcare maxim 0.5
+        if (count * 2 > table.length) {
+            rehash(table.length * 2);
+        }
+    }
+
+    private void rehash(int capacity) {
+        int[] next = new int[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < count; i++) {
+            int slot = hashes[i] & mask;
+            while (next[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            next[slot] = i + 1;
+        }
+        table = next;
+    }
+
+    private boolean equalsAt(int index, CharSequence domain) {
+        int start = starts[index];
+        int end = index + 1 < count ? starts[index + 1] : dataSize;
+        if (end - start != domain.length()) return false;
+        for (int i = 0; i < domain.length(); i++) {
+            if (data[start + i] != (byte) domain.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private static int hash(CharSequence domain) {
+        int h = 0x811C9DC5;
+        for (int i = 0; i < domain.length(); i++) {
+            h = (h ^ domain.charAt(i)) * 0x01000193;
+        }
+        // amestecare finală pentru biții mici folosiți la indexare
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        return h;
+    }
+}
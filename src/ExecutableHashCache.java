@@ -0,0 +1,206 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// SHA-256 pentru executabile, memorat pe disc după (cale, dimensiune, mtime):
+// fiecare binar se calculează o singură dată, iar o verificare ulterioară costă doar un stat.
+// Calculul pentru binare noi rulează pe un fir separat și nu întârzie monitorul.
+// Un binar care nu poate fi citit (blocat, acces refuzat) este ținut minte doar în memorie, tot
+// după dimensiune și mtime, ca să nu fie recitit la fiecare scanare.
+// Format: size|mtimeMillis|sha256|path
+public class ExecutableHashCache {
+    // Rezultatul lookup pentru binarele fără amprentă posibilă; null înseamnă "în calcul".
+    public static final String UNAVAILABLE = "";
+    private static final long NOTIFY_INTERVAL_NANOS = 1_000_000_000L;
+
+    private final Path cacheFile;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<String, Entry> failures = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<String>> pending = new ConcurrentHashMap<>();
+    private final ExecutorService hasher;
+    private volatile Runnable onHashed = () -> { };
+    private volatile long lastNotifyNanos = System.nanoTime();
+
+    private static final class Entry {
+        private final long size;
+        private final long mtime;
+        private final String sha256;
+
+        private Entry(long size, long mtime, String sha256) {
+            this.size = size;
+            this.mtime = mtime;
+            this.sha256 = sha256;
+        }
+    }
+
+    public ExecutableHashCache() {
+        String appDir = System.getenv("APPDATA");
+        if (appDir == null || appDir.isBlank()) {
+            appDir = System.getProperty("user.home");
+        }
+        Path dir = Path.of(appDir, "ParentalControlApp");
+        try {
+            Files.createDirectories(dir);
+        } catch (IOException ignored) {
+        }
+        cacheFile = dir.resolve("exe_hashes.txt");
+        hasher = Executors.newFixedThreadPool(2, r -> {
+            Thread t = new Thread(r, "ExecutableHasher");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+        load();
+    }
+
+    // Apelat (pe firul de calcul) după ce s-au terminat calculele în curs, sau cel mult o dată
+    // pe secundă cât timp coada e lungă (ex. sute de binare la pornire), nu după fiecare hash.
+    public void setOnHashed(Runnable onHashed) {
+        this.onHashed = onHashed == null ? () -> { } : onHashed;
+    }
+
+    // Hash-ul din cache dacă fișierul nu s-a schimbat; UNAVAILABLE dacă fișierul nu poate fi
+    // citit; altfel pornește calculul în fundal și returnează null.
+    public String lookup(String path) {
+        if (path == null || path.isBlank()) {
+            return UNAVAILABLE;
+        }
+        String key = path.toLowerCase();
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(Path.of(path), BasicFileAttributes.class);
+        } catch (IOException | RuntimeException ex) {
+            return UNAVAILABLE;
+        }
+        Entry entry = entries.get(key);
+        if (entry != null && entry.size == attrs.size() && entry.mtime == attrs.lastModifiedTime().toMillis()) {
+            return entry.sha256;
+        }
+        Entry failed = failures.get(key);
+        if (failed != null && failed.size == attrs.size() && failed.mtime == attrs.lastModifiedTime().toMillis()) {
+            return UNAVAILABLE;
+        }
+        hashAsync(path);
+        return null;
+    }
+
+    public CompletableFuture<String> hashAsync(String path) {
+        String key = path.toLowerCase();
+        CompletableFuture<String> created = new CompletableFuture<>();
+        CompletableFuture<String> existing = pending.putIfAbsent(key, created);
+        if (existing != null) {
+            return existing;
+        }
+        hasher.execute(() -> {
+            try {
+                created.complete(computeAndStore(path, key));
+            } catch (RuntimeException ex) {
+                created.completeExceptionally(ex);
+            } finally {
+                pending.remove(key, created);
+                notifyHashed();
+            }
+        });
+        return created;
+    }
+
+    private void notifyHashed() {
+        long now = System.nanoTime();
+        if (pending.isEmpty() || now - lastNotifyNanos > NOTIFY_INTERVAL_NANOS) {
+            lastNotifyNanos = now;
+            onHashed.run();
+        }
+    }
+
+    private String computeAndStore(String path, String key) {
+        BasicFileAttributes attrs = null;
+        try {
+            Path file = Path.of(path);
+            attrs = Files.readAttributes(file, BasicFileAttributes.class);
+            String sha256 = sha256(file);
+            Entry entry = new Entry(attrs.size(), attrs.lastModifiedTime().toMillis(), sha256);
+            entries.put(key, entry);
+            failures.remove(key);
+            append(key, entry);
+            return sha256;
+        } catch (IOException ex) {
+            if (attrs != null) {
+                failures.put(key, new Entry(attrs.size(), attrs.lastModifiedTime().toMillis(), UNAVAILABLE));
+            }
+            throw new IllegalStateException("Nu pot calcula hash-ul pentru " + path + ": " + ex.getMessage(), ex);
+        }
+    }
+
+    private static String sha256(Path file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private synchronized void append(String key, Entry entry) {
+        String line = entry.size + "|" + entry.mtime + "|" + entry.sha256 + "|" + key + System.lineSeparator();
+        try {
+            Files.writeString(cacheFile, line, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException ignored) {
+            // cache-ul rămâne valabil în memorie
+        }
+    }
+
+    private void load() {
+        if (!Files.exists(cacheFile)) return;
+        int lines = 0;
+        try (BufferedReader r = Files.newBufferedReader(cacheFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = r.readLine()) != null) {
+                String[] parts = line.split("\\|", 4);
+                if (parts.length < 4) continue;
+                try {
+                    entries.put(parts[3], new Entry(Long.parseLong(parts[0]), Long.parseLong(parts[1]), parts[2]));
+                    lines++;
+                } catch (NumberFormatException ignored) {
+                }
+            }
+        } catch (IOException ignored) {
+            return;
+        }
+        if (lines > 2 * entries.size() + 16) {
+            rewrite();
+        }
+    }
+
+    // Elimină intrările depășite (același fișier recalculat de mai multe ori).
+    private synchronized void rewrite() {
+        StringBuilder sb = new StringBuilder();
+        entries.forEach((key, e) -> sb.append(e.size).append('|').append(e.mtime).append('|')
+                .append(e.sha256).append('|').append(key).append(System.lineSeparator()));
+        try {
+            Files.writeString(cacheFile, sb.toString(), StandardCharsets.UTF_8);
+        } catch (IOException ignored) {
+        }
+    }
+}
@@ -0,0 +1,179 @@
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Index imuabil construit o singură dată din lista de reguli:
+// cale completă normalizată -> reguli, nume executabil (lowercase) -> reguli.
+// Regulile cu tipare de linie de comandă sunt compilate într-un singur automat
+// Aho-Corasick; pentru ele executabilul, dacă e completat, devine o condiție în plus.
+// Regulile cu amprentă SHA-256 se potrivesc și după conținutul binarului (vezi ExecutableHashCache).
+public final class ExecutableRuleIndex {
+    private static final ExecutableRuleIndex EMPTY =
+            new ExecutableRuleIndex(Map.of(), Map.of(), Map.of(), AhoCorasick.build(List.of()), List.of());
+
+    private final Map<String, List<BlockedApp>> byPath;
+    private final Map<String, List<BlockedApp>> byName;
+    private final Map<String, List<BlockedApp>> byContentHash;
+    private final AhoCorasick commandLinePatterns;
+    private final List<PatternRule> patternRules;
+
+    private static final class PatternRule {
+        private final BlockedApp app;
+        private final String path;
+        private final String name;
+
+        private PatternRule(BlockedApp app, String path, String name) {
+            this.app = app;
+            this.path = path;
+            this.name = name;
+        }
+
+        private boolean acceptsExecutable(String lowerCommand) {
+            if (path == null && name == null) {
+                return true;
+            }
+            return lowerCommand.equals(path) || baseName(lowerCommand).equals(name);
+        }
+    }
+
+    private ExecutableRuleIndex(Map<String, List<BlockedApp>> byPath, Map<String, List<BlockedApp>> byName,
+                                Map<String, List<BlockedApp>> byContentHash,
+                                AhoCorasick commandLinePatterns, List<PatternRule> patternRules) {
+        this.byPath = byPath;
+        this.byName = byName;
+        this.byContentHash = byContentHash;
+        this.commandLinePatterns = commandLinePatterns;
+        this.patternRules = patternRules;
+    }
+
+    public static ExecutableRuleIndex empty() {
+        return EMPTY;
+    }
+
+    public static ExecutableRuleIndex of(List<BlockedApp> apps) {
+        Map<String, List<BlockedApp>> byPath = new HashMap<>();
+        Map<String, List<BlockedApp>> byName = new HashMap<>();
+        Map<String, List<BlockedApp>> byContentHash = new HashMap<>();
+        List<String> patterns = new ArrayList<>();
+        List<PatternRule> patternRules = new ArrayList<>();
+        for (BlockedApp app : apps) {
+            String path = normalizePath(app.getExePath());
+            String name = app.getExeName() == null || app.getExeName().isBlank() ? null : app.getExeName().trim().toLowerCase();
+            String sha256 = app.getContentSha256();
+            if (sha256 != null && !sha256.isBlank()) {
+                byContentHash.computeIfAbsent(sha256.toLowerCase(), k -> new ArrayList<>(1)).add(app);
+            }
+            List<String> appPatterns = app.getCommandLinePatterns();
+            if (!appPatterns.isEmpty()) {
+                PatternRule rule = new PatternRule(app, path, name);
+                for (String pattern : appPatterns) {
+                    patterns.add(pattern);
+                    patternRules.add(rule);
+                }
+                continue;
+            }
+            if (path != null) {
+                byPath.computeIfAbsent(path, k -> new ArrayList<>(1)).add(app);
+            }
+            if (name != null) {
+                byName.computeIfAbsent(name, k -> new ArrayList<>(1)).add(app);
+            }
+        }
+        if (byPath.isEmpty() && byName.isEmpty() && byContentHash.isEmpty() && patterns.isEmpty()) {
+            return EMPTY;
+        }
+        byPath.replaceAll((k, v) -> List.copyOf(v));
+        byName.replaceAll((k, v) -> List.copyOf(v));
+        byContentHash.replaceAll((k, v) -> List.copyOf(v));
+        return new ExecutableRuleIndex(Map.copyOf(byPath), Map.copyOf(byName), Map.copyOf(byContentHash),
+                AhoCorasick.build(patterns), List.copyOf(patternRules));
+    }
+
+    public boolean isEmpty() {
+        return byPath.isEmpty() && byName.isEmpty() && byContentHash.isEmpty() && patternRules.isEmpty();
+    }
+
+    public boolean hasCommandLineRules() {
+        return !patternRules.isEmpty();
+    }
+
+    public boolean hasContentRules() {
+        return !byContentHash.isEmpty();
+    }
+
+    // Adaugă la potrivirile existente regulile cu amprenta dată, fără duplicate.
+    public List<BlockedApp> withContentMatches(List<BlockedApp> matches, String sha256) {
+        List<BlockedApp> hits = sha256 == null ? List.of() : byContentHash.getOrDefault(sha256.toLowerCase(), List.of());
+        if (hits.isEmpty()) {
+            return matches;
+        }
+        Set<BlockedApp> merged = new LinkedHashSet<>(matches);
+        merged.addAll(hits);
+        return Collections.unmodifiableList(new ArrayList<>(merged));
+    }
+
+    // Regulile care se potrivesc procesului, fără duplicate, în ordinea: cale, nume, linie de comandă.
+    public List<BlockedApp> lookup(ProcessDetails details) {
+        return lookup(details.getCommand(), details.getCommandLine());
+    }
+
+    private List<BlockedApp> lookup(String command, String commandLine) {
+        if (command == null || command.isBlank() || isEmpty()) {
+            return List.of();
+        }
+        String lower = stripLongPathPrefix(command.toLowerCase());
+        List<BlockedApp> pathHits = byPath.getOrDefault(lower, List.of());
+        List<BlockedApp> nameHits = byName.getOrDefault(baseName(lower), List.of());
+        List<BlockedApp> patternHits = matchCommandLine(lower, commandLine);
+        if (nameHits.isEmpty() && patternHits.isEmpty()) {
+            return pathHits;
+        }
+        if (pathHits.isEmpty() && patternHits.isEmpty()) {
+            return nameHits;
+        }
+        Set<BlockedApp> merged = new LinkedHashSet<>(pathHits);
+        merged.addAll(nameHits);
+        merged.addAll(patternHits);
+        return Collections.unmodifiableList(new ArrayList<>(merged));
+    }
+
+    private List<BlockedApp> matchCommandLine(String lowerCommand, String commandLine) {
+        if (patternRules.isEmpty() || commandLine == null || commandLine.isBlank()) {
+            return List.of();
+        }
+        List<BlockedApp> hits = new ArrayList<>(1);
+        commandLinePatterns.search(commandLine.toLowerCase(), id -> {
+            PatternRule rule = patternRules.get(id);
+            if (!hits.contains(rule.app) && rule.acceptsExecutable(lowerCommand)) {
+                hits.add(rule.app);
+            }
+        });
+        return hits;
+    }
+
+    static String normalizePath(String exePath) {
+        if (exePath == null || exePath.isBlank()) {
+            return null;
+        }
+        try {
+            return stripLongPathPrefix(Paths.get(exePath).toAbsolutePath().normalize().toString().toLowerCase());
+        } catch (InvalidPathException ex) {
+            return null;
+        }
+    }
+
+    private static String stripLongPathPrefix(String lower) {
+        return lower.startsWith("\\\\?\\") ? lower.substring(4) : lower;
+    }
+
+    private static String baseName(String lower) {
+        int idx = Math.max(lower.lastIndexOf('\\'), lower.lastIndexOf('/'));
+        return idx >= 0 ? lower.substring(idx + 1) : lower;
+    }
+}
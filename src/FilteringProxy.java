@@ -0,0 +1,642 @@
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+// Proxy local de filtrare (HTTP și CONNECT), un singur fir NIO pentru toate conexiunile.
+// Pentru CONNECT se verifică numele cerut și apoi numele SNI din ClientHello-ul TLS (fără
+// decriptare); pentru HTTP necriptat se verifică domeniul cererii. Calea nu se filtrează:
+// în HTTPS nu este vizibilă, așa că regulile cu cale blochează tot domeniul (vezi SiteRules).
+// Conexiunile permise sunt retransmise prin buffere directe; rezolvarea numelor rulează pe
+// un mic grup de fire separat, ca selectorul să nu aștepte după DNS.
+public class FilteringProxy {
+    private static final int BUFFER_SIZE = 16 * 1024 + 5; // o înregistrare TLS întreagă
+    private static final int MAX_POOLED_BUFFERS = 512;
+    private static final int RESOLVER_THREADS = 4;
+    private static final int CONNECT_TIMEOUT_MILLIS = 10_000;
+    private static final String CONNECT_OK = "HTTP/1.1 200 Connection established\r\n\r\n";
+    private static final String FORBIDDEN = "HTTP/1.1 403 Forbidden\r\nContent-Type: text/plain; charset=utf-8\r\n"
+            + "Connection: close\r\n\r\nSite blocat de controlul parental.\n";
+    private static final String BAD_GATEWAY = "HTTP/1.1 502 Bad Gateway\r\nConnection: close\r\n\r\n";
+    private static final String BAD_REQUEST = "HTTP/1.1 400 Bad Request\r\nConnection: close\r\n\r\n";
+
+    private enum State { REQUEST, CLIENT_HELLO, RESOLVING, CONNECTING, RELAY, CLOSING }
+
+    private final InetSocketAddress listenAddress;
+    private final Consumer<String> logger;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    // folosit doar de firul selectorului
+    private final ArrayDeque<ByteBuffer> bufferPool = new ArrayDeque<>();
+    private final AtomicInteger openTunnels = new AtomicInteger();
+    private volatile SiteRules rules = SiteRules.empty();
+    private volatile Consumer<String> activityListener = host -> { };
+    private ExecutorService resolver;
+    private Selector selector;
+    private ServerSocketChannel server;
+    private Thread worker;
+    private volatile boolean running;
+    private long lastExpiryCheckMillis;
+
+    // O conexiune client cu perechea ei din amonte. toUpstream/toClient sunt ținute în modul
+    // de scriere (position = octeți în așteptare).
+    private final class Tunnel {
+        private final SocketChannel client;
+        private SocketChannel upstream;
+        private SelectionKey clientKey;
+        private SelectionKey upstreamKey;
+        private ByteBuffer toUpstream;
+        private ByteBuffer toClient;
+        private State state = State.REQUEST;
+        private String host;
+        private int port;
+        private boolean httpRequest;
+        private boolean clientEof;
+        private boolean upstreamEof;
+        private long connectStartedMillis;
+        private long activityMinute = -1;
+
+        private Tunnel(SocketChannel client) {
+            this.client = client;
+            this.toUpstream = takeBuffer();
+            this.toClient = takeBuffer();
+        }
+    }
+
+    public FilteringProxy(InetSocketAddress listenAddress, Consumer<String> logger) {
+        this.listenAddress = listenAddress;
+        this.logger = logger;
+    }
+
+    // Regulile noi se aplică și conexiunilor deja deschise: tunelurile spre domenii blocate acum
+    // (limită epuizată, ieșire din program) sunt închise pe firul selectorului.
+    public synchronized void setRules(SiteRules rules) {
+        this.rules = rules;
+        if (!running) return;
+        tasks.add(this::closeBlockedTunnels);
+        selector.wakeup();
+    }
+
+    // Apelat pe firul proxy-ului cu numele destinației, cel mult o dată pe minut pentru fiecare
+    // conexiune care transferă date (folosit pentru limitele zilnice ale site-urilor).
+    public void setActivityListener(Consumer<String> activityListener) {
+        this.activityListener = activityListener;
+    }
+
+    public synchronized void start() throws IOException {
+        if (running) return;
+        selector = Selector.open();
+        server = ServerSocketChannel.open();
+        try {
+            server.bind(listenAddress, 1024);
+            server.configureBlocking(false);
+            server.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException | RuntimeException ex) {
+            closeQuietly(server);
+            selector.close();
+            throw ex;
+        }
+        resolver = Executors.newFixedThreadPool(RESOLVER_THREADS, r -> {
+            Thread t = new Thread(r, "ProxyResolver");
+            t.setDaemon(true);
+            return t;
+        });
+        running = true;
+        worker = new Thread(this::loop, "FilteringProxy");
+        worker.setDaemon(true);
+        worker.start();
+        log("Proxy de filtrare pornit pe " + getLocalAddress() + ".");
+    }
+
+    public synchronized void stop() {
+        if (!running) return;
+        running = false;
+        selector.wakeup();
+        try {
+            worker.join(1000);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        resolver.shutdownNow();
+        for (SelectionKey key : selector.keys()) {
+            closeQuietly(key.channel());
+        }
+        try {
+            selector.close();
+        } catch (IOException ignored) {
+        }
+        log("Proxy de filtrare oprit.");
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public int getOpenTunnels() {
+        return openTunnels.get();
+    }
+
+    public InetSocketAddress getLocalAddress() {
+        try {
+            return (InetSocketAddress) server.getLocalAddress();
+        } catch (IOException | RuntimeException ex) {
+            return listenAddress;
+        }
+    }
+
+    private void loop() {
+        while (running) {
+            try {
+                selector.select(1000);
+                Runnable task;
+                while ((task = tasks.poll()) != null) {
+                    task.run();
+                }
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) continue;
+                    if (key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+                    Tunnel tunnel = (Tunnel) key.attachment();
+                    try {
+                        handle(tunnel, key);
+                    } catch (IOException | RuntimeException ex) {
+                        close(tunnel);
+                    }
+                }
+                expireConnects();
+            } catch (IOException | RuntimeException ex) {
+                if (running) log("Eroare proxy: " + ex.getMessage());
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = server.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            Tunnel tunnel = new Tunnel(channel);
+            tunnel.clientKey = channel.register(selector, SelectionKey.OP_READ, tunnel);
+            openTunnels.incrementAndGet();
+        }
+    }
+
+    private void handle(Tunnel tunnel, SelectionKey key) throws IOException {
+        if (key.channel() == tunnel.upstream) {
+            if (key.isConnectable()) {
+                tunnel.upstream.finishConnect();
+                tunnel.state = State.RELAY;
+                reportActivity(tunnel);
+            }
+            if (key.isValid() && key.isReadable()) {
+                int read = tunnel.upstream.read(tunnel.toClient);
+                if (read < 0) tunnel.upstreamEof = true;
+                else if (read > 0) reportActivity(tunnel);
+            }
+            if (key.isValid() && key.isWritable()) {
+                flush(tunnel.toUpstream, tunnel.upstream);
+            }
+        } else {
+            if (key.isReadable() && tunnel.client.read(tunnel.toUpstream) < 0) {
+                tunnel.clientEof = true;
+            }
+            if (key.isValid() && key.isWritable()) {
+                flush(tunnel.toClient, tunnel.client);
+            }
+            if (tunnel.state == State.REQUEST) {
+                onRequestData(tunnel);
+            } else if (tunnel.state == State.CLIENT_HELLO) {
+                onClientHello(tunnel);
+            }
+        }
+        if (!tunnel.client.isOpen()) return;
+        if (tunnel.state == State.RELAY || tunnel.state == State.CLOSING) {
+            // sfârșitul unui sens se transmite mai departe după golirea datelor în așteptare
+            if (tunnel.clientEof && tunnel.toUpstream.position() == 0 && tunnel.upstream != null
+                    && tunnel.upstream.isOpen()) {
+                tunnel.upstream.shutdownOutput();
+            }
+            if (tunnel.upstreamEof && tunnel.toClient.position() == 0) {
+                tunnel.client.shutdownOutput();
+            }
+            boolean done = tunnel.state == State.CLOSING
+                    ? tunnel.toClient.position() == 0
+                    : tunnel.clientEof && tunnel.upstreamEof
+                    && tunnel.toUpstream.position() == 0 && tunnel.toClient.position() == 0;
+            if (done) {
+                close(tunnel);
+                return;
+            }
+        } else if (tunnel.clientEof) {
+            close(tunnel);
+            return;
+        }
+        updateInterest(tunnel);
+    }
+
+    private void onRequestData(Tunnel tunnel) {
+        ByteBuffer in = tunnel.toUpstream;
+        if (in.position() > 0 && in.get(0) == 0x16) {
+            // TLS direct (proxy transparent): destinația vine numai din SNI
+            tunnel.port = 443;
+            tunnel.state = State.CLIENT_HELLO;
+            onClientHello(tunnel);
+            return;
+        }
+        int headerEnd = indexOf(in, "\r\n\r\n");
+        if (headerEnd < 0) {
+            if (!in.hasRemaining()) respondAndClose(tunnel, BAD_REQUEST);
+            return;
+        }
+        String header = ascii(in, 0, headerEnd);
+        int lineEnd = header.indexOf("\r\n");
+        String[] requestLine = (lineEnd < 0 ? header : header.substring(0, lineEnd)).split(" ");
+        if (requestLine.length != 3) {
+            respondAndClose(tunnel, BAD_REQUEST);
+            return;
+        }
+        String method = requestLine[0];
+        String target = requestLine[1];
+        if (method.equalsIgnoreCase("CONNECT")) {
+            if (!parseAuthority(tunnel, target, 443)) {
+                respondAndClose(tunnel, BAD_REQUEST);
+                return;
+            }
+            if (rules.blocksHost(tunnel.host)) {
+                blocked(tunnel, tunnel.host, FORBIDDEN);
+                return;
+            }
+            consume(in, headerEnd + 4);
+            // răspunsul 200 pleacă înainte de conectare: ClientHello-ul trebuie citit
+            // și verificat înainte de a deschide conexiunea spre destinație
+            tunnel.toClient.put(CONNECT_OK.getBytes(StandardCharsets.US_ASCII));
+            tunnel.state = State.CLIENT_HELLO;
+            onClientHello(tunnel);
+            return;
+        }
+        String path = target;
+        if (target.regionMatches(true, 0, "http://", 0, 7)) {
+            int slash = target.indexOf('/', 7);
+            String authority = slash < 0 ? target.substring(7) : target.substring(7, slash);
+            path = slash < 0 ? "/" : target.substring(slash);
+            if (!parseAuthority(tunnel, authority, 80)) {
+                respondAndClose(tunnel, BAD_REQUEST);
+                return;
+            }
+        } else {
+            String hostHeader = headerValue(header, "host");
+            if (hostHeader == null || !parseAuthority(tunnel, hostHeader, 80)) {
+                respondAndClose(tunnel, BAD_REQUEST);
+                return;
+            }
+        }
+        if (rules.blocksHost(tunnel.host)) {
+            blocked(tunnel, tunnel.host + path, FORBIDDEN);
+            return;
+        }
+        // cererea pleacă în forma de origine, cu "Connection: close": următoarea cerere a
+        // browserului poate avea altă destinație și trebuie verificată pe o conexiune nouă
+        StringBuilder rewritten = new StringBuilder(header.length() + 32);
+        rewritten.append(method).append(' ').append(path).append(' ').append(requestLine[2]).append("\r\n");
+        for (String line : header.substring(lineEnd + 2).split("\r\n")) {
+            String lower = line.toLowerCase();
+            if (lower.startsWith("connection:") || lower.startsWith("proxy-connection:")
+                    || lower.startsWith("keep-alive:")) {
+                continue;
+            }
+            rewritten.append(line).append("\r\n");
+        }
+        rewritten.append("Connection: close\r\n\r\n");
+        byte[] head = rewritten.toString().getBytes(StandardCharsets.ISO_8859_1);
+        consume(in, headerEnd + 4);
+        if (head.length > in.remaining()) {
+            respondAndClose(tunnel, BAD_REQUEST);
+            return;
+        }
+        // antetul rescris se pune înaintea corpului deja primit
+        in.flip();
+        ByteBuffer body = takeBuffer();
+        body.put(in);
+        in.clear();
+        in.put(head);
+        body.flip();
+        in.put(body);
+        releaseBuffer(body);
+        tunnel.httpRequest = true;
+        resolve(tunnel);
+    }
+
+    private void onClientHello(Tunnel tunnel) {
+        ByteBuffer in = tunnel.toUpstream;
+        int available = in.position();
+        if (available == 0) return;
+        String sni = null;
+        // altceva decât TLS după CONNECT (de ex. WebSocket necriptat): numele a fost verificat deja
+        if (in.get(0) == 0x16) {
+            if (available < 5) return;
+            int recordLength = ((in.get(3) & 0xFF) << 8) | (in.get(4) & 0xFF);
+            if (available < 5 + recordLength && in.hasRemaining()) return;
+            ByteBuffer view = in.duplicate();
+            view.flip();
+            sni = parseSni(view);
+        }
+        if (sni != null) {
+            sni = sni.toLowerCase();
+            if (rules.blocksHost(sni)) {
+                blocked(tunnel, sni, null);
+                return;
+            }
+        }
+        if (tunnel.host == null) {
+            if (sni == null) {
+                close(tunnel);
+                return;
+            }
+            tunnel.host = sni;
+        }
+        resolve(tunnel);
+    }
+
+    private void resolve(Tunnel tunnel) {
+        tunnel.state = State.RESOLVING;
+        String host = tunnel.host;
+        resolver.execute(() -> {
+            InetAddress address;
+            try {
+                address = InetAddress.getByName(host);
+            } catch (IOException ex) {
+                address = null;
+            }
+            InetAddress resolved = address;
+            tasks.add(() -> connect(tunnel, resolved));
+            selector.wakeup();
+        });
+    }
+
+    private void connect(Tunnel tunnel, InetAddress address) {
+        if (!tunnel.client.isOpen()) return;
+        if (address == null || address.isAnyLocalAddress()) {
+            // numele este blocat și în hosts/DNS sau nu există
+            respondAndClose(tunnel, tunnel.httpRequest ? BAD_GATEWAY : null);
+            updateInterest(tunnel);
+            return;
+        }
+        try {
+            SocketChannel upstream = SocketChannel.open();
+            tunnel.upstream = upstream;
+            upstream.configureBlocking(false);
+            upstream.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            tunnel.state = State.CONNECTING;
+            tunnel.connectStartedMillis = System.currentTimeMillis();
+            tunnel.upstreamKey = upstream.register(selector, SelectionKey.OP_CONNECT, tunnel);
+            if (upstream.connect(new InetSocketAddress(address, tunnel.port))) {
+                tunnel.state = State.RELAY;
+                reportActivity(tunnel);
+            }
+            updateInterest(tunnel);
+        } catch (IOException ex) {
+            respondAndClose(tunnel, tunnel.httpRequest ? BAD_GATEWAY : null);
+            updateInterest(tunnel);
+        }
+    }
+
+    private void reportActivity(Tunnel tunnel) {
+        long minute = System.currentTimeMillis() / 60_000L;
+        if (minute != tunnel.activityMinute) {
+            tunnel.activityMinute = minute;
+            activityListener.accept(tunnel.host);
+        }
+    }
+
+    private void closeBlockedTunnels() {
+        SiteRules current = rules;
+        for (SelectionKey key : new ArrayList<>(selector.keys())) {
+            if (!(key.attachment() instanceof Tunnel)) continue;
+            Tunnel tunnel = (Tunnel) key.attachment();
+            // înainte de RESOLVING numele nu a fost încă verificat; va fi, cu regulile noi
+            if (tunnel.host == null || !tunnel.client.isOpen() || key.channel() != tunnel.client) continue;
+            if (tunnel.state == State.REQUEST || tunnel.state == State.CLIENT_HELLO || tunnel.state == State.CLOSING) continue;
+            if (current.blocksHost(tunnel.host)) {
+                log("Proxy: conexiune închisă după schimbarea regulilor: " + tunnel.host);
+                close(tunnel);
+            }
+        }
+    }
+
+    private void expireConnects() {
+        long now = System.currentTimeMillis();
+        if (now - lastExpiryCheckMillis < 1000) return;
+        lastExpiryCheckMillis = now;
+        for (SelectionKey key : selector.keys()) {
+            if (!(key.attachment() instanceof Tunnel)) continue;
+            Tunnel tunnel = (Tunnel) key.attachment();
+            if (tunnel.state == State.CONNECTING && key.channel() == tunnel.upstream
+                    && now - tunnel.connectStartedMillis > CONNECT_TIMEOUT_MILLIS) {
+                close(tunnel);
+            }
+        }
+    }
+
+    private void updateInterest(Tunnel tunnel) {
+        if (!tunnel.client.isOpen()) return;
+        boolean relaying = tunnel.state == State.RELAY;
+        boolean readingRequest = tunnel.state == State.REQUEST || tunnel.state == State.CLIENT_HELLO;
+        int clientOps = 0;
+        if (!tunnel.clientEof && tunnel.toUpstream.hasRemaining() && (relaying || readingRequest)) {
+            clientOps |= SelectionKey.OP_READ;
+        }
+        if (tunnel.toClient.position() > 0) clientOps |= SelectionKey.OP_WRITE;
+        tunnel.clientKey.interestOps(clientOps);
+        if (tunnel.upstreamKey != null && tunnel.upstreamKey.isValid()) {
+            int upstreamOps = 0;
+            if (tunnel.state == State.CONNECTING) {
+                upstreamOps = SelectionKey.OP_CONNECT;
+            } else if (relaying) {
+                if (!tunnel.upstreamEof && tunnel.toClient.hasRemaining()) upstreamOps |= SelectionKey.OP_READ;
+                if (tunnel.toUpstream.position() > 0) upstreamOps |= SelectionKey.OP_WRITE;
+            }
+            tunnel.upstreamKey.interestOps(upstreamOps);
+        }
+    }
+
+    private static void flush(ByteBuffer pending, SocketChannel target) throws IOException {
+        pending.flip();
+        try {
+            target.write(pending);
+        } finally {
+            pending.compact();
+        }
+    }
+
+    private void blocked(Tunnel tunnel, String what, String response) {
+        log("Proxy: blocat " + what);
+        respondAndClose(tunnel, response);
+    }
+
+    // Trimite răspunsul (dacă există) și închide conexiunea după golirea lui.
+    private void respondAndClose(Tunnel tunnel, String response) {
+        if (response == null) {
+            close(tunnel);
+            return;
+        }
+        tunnel.toClient.clear();
+        tunnel.toClient.put(response.getBytes(StandardCharsets.UTF_8));
+        tunnel.toUpstream.clear();
+        tunnel.state = State.CLOSING;
+        if (tunnel.upstream != null) {
+            closeQuietly(tunnel.upstream);
+        }
+    }
+
+    private void close(Tunnel tunnel) {
+        if (!tunnel.client.isOpen()) return;
+        closeQuietly(tunnel.client);
+        if (tunnel.upstream != null) closeQuietly(tunnel.upstream);
+        releaseBuffer(tunnel.toUpstream);
+        releaseBuffer(tunnel.toClient);
+        tunnel.state = State.CLOSING;
+        openTunnels.decrementAndGet();
+    }
+
+    private static void closeQuietly(java.nio.channels.Channel channel) {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private ByteBuffer takeBuffer() {
+        ByteBuffer buffer = bufferPool.poll();
+        return buffer != null ? buffer : ByteBuffer.allocateDirect(BUFFER_SIZE);
+    }
+
+    private void releaseBuffer(ByteBuffer buffer) {
+        buffer.clear();
+        if (bufferPool.size() < MAX_POOLED_BUFFERS) bufferPool.push(buffer);
+    }
+
+    // "gazda:port" sau "[::1]:port"; numele este păstrat cu litere mici.
+    private static boolean parseAuthority(Tunnel tunnel, String authority, int defaultPort) {
+        String value = authority.trim();
+        int port = defaultPort;
+        int colon = value.lastIndexOf(':');
+        if (colon > 0 && colon > value.lastIndexOf(']')) {
+            try {
+                port = Integer.parseInt(value.substring(colon + 1));
+            } catch (NumberFormatException ex) {
+                return false;
+            }
+            value = value.substring(0, colon);
+        }
+        if (value.startsWith("[") && value.endsWith("]")) value = value.substring(1, value.length() - 1);
+        if (value.isEmpty() || port <= 0 || port > 65535) return false;
+        tunnel.host = value.toLowerCase();
+        tunnel.port = port;
+        return true;
+    }
+
+    private static String headerValue(String header, String name) {
+        for (String line : header.split("\r\n")) {
+            int colon = line.indexOf(':');
+            if (colon > 0 && line.substring(0, colon).trim().equalsIgnoreCase(name)) {
+                return line.substring(colon + 1).trim();
+            }
+        }
+        return null;
+    }
+
+    // Numele din extensia server_name (tip 0) a unui ClientHello, sau null.
+    static String parseSni(ByteBuffer record) {
+        try {
+            ByteBuffer b = record.slice();
+            if ((b.get() & 0xFF) != 0x16) return null;
+            b.position(5);
+            if ((b.get() & 0xFF) != 0x01) return null; // ClientHello
+            skip(b, 3 + 2 + 32); // lungime, versiune, random
+            skip(b, b.get() & 0xFF); // session id
+            skip(b, b.getShort() & 0xFFFF); // cipher suites
+            skip(b, b.get() & 0xFF); // compression
+            int extensionsLength = b.getShort() & 0xFFFF;
+            int extensionsEnd = b.position() + extensionsLength;
+            while (b.position() + 4 <= Math.min(extensionsEnd, b.limit())) {
+                int type = b.getShort() & 0xFFFF;
+                int length = b.getShort() & 0xFFFF;
+                if (type != 0) {
+                    skip(b, length);
+                    continue;
+                }
+                int listLength = b.getShort() & 0xFFFF;
+                int listEnd = b.position() + listLength;
+                while (b.position() + 3 <= listEnd) {
+                    int nameType = b.get() & 0xFF;
+                    int nameLength = b.getShort() & 0xFFFF;
+                    if (nameType == 0) {
+                        byte[] name = new byte[nameLength];
+                        b.get(name);
+                        return new String(name, StandardCharsets.US_ASCII);
+                    }
+                    skip(b, nameLength);
+                }
+                return null;
+            }
+        } catch (RuntimeException ex) {
+            // ClientHello trunchiat sau malformat
+        }
+        return null;
+    }
+
+    private static void skip(ByteBuffer buffer, int count) {
+        buffer.position(buffer.position() + count);
+    }
+
+    private static int indexOf(ByteBuffer buffer, String pattern) {
+        int limit = buffer.position() - pattern.length();
+        outer:
+        for (int i = 0; i <= limit; i++) {
+            for (int j = 0; j < pattern.length(); j++) {
+                if (buffer.get(i + j) != pattern.charAt(j)) continue outer;
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private static String ascii(ByteBuffer buffer, int from, int to) {
+        byte[] bytes = new byte[to - from];
+        for (int i = from; i < to; i++) bytes[i - from] = buffer.get(i);
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    // Elimină primii count octeți din bufferul aflat în modul de scriere.
+    private static void consume(ByteBuffer buffer, int count) {
+        buffer.flip();
+        buffer.position(count);
+        buffer.compact();
+    }
+
+    private void log(String msg) {
+        try {
+            logger.accept(msg);
+        } catch (Exception ignored) {
+        }
+    }
+}
@@ -0,0 +1,208 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+// Jurnalul aplicației: un inel fără blocări în care scriu toate firele (monitor, proxy, DNS, UI)
+// și din care citesc doi consumatori independenți, fiecare cu propriul cursor:
+//   - fișierul parental_control.log, scris de un fir separat și rotit după MAX_FILE_BYTES
+//     (parental_control.log.1 .. .N); inelul nu suprascrie mesaje nescrise încă în fișier,
+//     iar dacă e plin mesajul nou se pierde și se numără;
+//   - fereastra, care golește inelul o dată pe cadru; dacă rămâne în urmă (fereastra
+//     minimizată), sare peste mesajele deja suprascrise și afișează câte au fost omise.
+// Pentru apelant, log() înseamnă o rezervare CAS și o scriere în tablou; ora se formatează la citire.
+public class LogPipeline {
+    private static final int CAPACITY = 4096; // putere a lui 2
+    private static final int MASK = CAPACITY - 1;
+    private static final long MAX_FILE_BYTES = 1L << 20;
+    private static final int ROTATED_FILES = 3;
+    private static final long WRITE_INTERVAL_MILLIS = 200;
+    private static final DateTimeFormatter TIME =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss").withZone(ZoneId.systemDefault());
+
+    private final AtomicReferenceArray<Event> slots = new AtomicReferenceArray<>(CAPACITY);
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong fileCursor = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final Path logFile;
+    private final ScheduledExecutorService writer;
+    // folosite doar de firul LogWriter
+    private BufferedWriter out;
+    private long fileSize;
+    private long reportedDropped;
+    // folosite doar de firul JavaFX
+    private long viewCursor;
+    private long viewReportedDropped;
+
+    private static final class Event {
+        private final long sequence;
+        private final long millis;
+        private final String message;
+
+        private Event(long sequence, long millis, String message) {
+            this.sequence = sequence;
+            this.millis = millis;
+            this.message = message;
+        }
+    }
+
+    public LogPipeline() {
+        String appDir = System.getenv("APPDATA");
+        if (appDir == null || appDir.isBlank()) {
+            appDir = System.getProperty("user.home");
+        }
+        Path dir = Path.of(appDir, "ParentalControlApp");
+        try {
+            Files.createDirectories(dir);
+        } catch (IOException ignored) {
+        }
+        logFile = dir.resolve("parental_control.log");
+        writer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "LogWriter");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+        writer.scheduleWithFixedDelay(this::writePending, WRITE_INTERVAL_MILLIS, WRITE_INTERVAL_MILLIS,
+                TimeUnit.MILLISECONDS);
+    }
+
+    // Apelabil de pe orice fir; nu blochează și nu face I/O.
+    public void log(String message) {
+        long sequence;
+        do {
+            sequence = tail.get();
+            if (sequence - fileCursor.get() >= CAPACITY) {
+                dropped.incrementAndGet();
+                return;
+            }
+        } while (!tail.compareAndSet(sequence, sequence + 1));
+        slots.set((int) sequence & MASK, new Event(sequence, System.currentTimeMillis(), message));
+    }
+
+    // Apelat pe firul JavaFX (o dată pe cadru); trimite liniile noi, deja formatate, și
+    // întoarce numărul lor. Nu așteaptă mesajele rezervate dar încă nescrise în inel.
+    public int drainToView(Consumer<String> lines) {
+        int count = 0;
+        long cursor = viewCursor;
+        while (true) {
+            Event event = slots.get((int) cursor & MASK);
+            if (event == null || event.sequence < cursor) break;
+            if (event.sequence > cursor) {
+                // suprascris înainte să fie afișat; se reia de la cel mai vechi mesaj încă în inel
+                long oldest = Math.max(cursor + 1, tail.get() - CAPACITY);
+                lines.accept(format(System.currentTimeMillis(), (oldest - cursor) + " mesaje omise din afișare."));
+                count++;
+                cursor = oldest;
+                continue;
+            }
+            lines.accept(format(event.millis, event.message));
+            count++;
+            cursor++;
+        }
+        viewCursor = cursor;
+        long lost = dropped.get();
+        if (lost != viewReportedDropped) {
+            lines.accept(format(System.currentTimeMillis(), (lost - viewReportedDropped) + " mesaje pierdute (jurnal plin)."));
+            viewReportedDropped = lost;
+            count++;
+        }
+        return count;
+    }
+
+    // Scrie ce a rămas și oprește firul de scriere; apelat la închiderea aplicației.
+    public void close() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(2, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            writePending();
+            closeFile();
+        }
+    }
+
+    private synchronized void writePending() {
+        long cursor = fileCursor.get();
+        try {
+            boolean wrote = false;
+            while (true) {
+                Event event = slots.get((int) cursor & MASK);
+                if (event == null || event.sequence != cursor) break;
+                writeLine(format(event.millis, event.message));
+                // eliberează locul abia după ce mesajul a fost copiat
+                fileCursor.set(++cursor);
+                wrote = true;
+            }
+            long lost = dropped.get();
+            if (lost != reportedDropped) {
+                writeLine(format(System.currentTimeMillis(), (lost - reportedDropped) + " mesaje pierdute (jurnal plin)."));
+                reportedDropped = lost;
+                wrote = true;
+            }
+            if (wrote) out.flush();
+        } catch (IOException ex) {
+            // fișierul nu poate fi scris; mesajele se eliberează ca să nu blocheze inelul,
+            // iar la următoarea trecere se reîncearcă deschiderea
+            closeFile();
+            while (true) {
+                Event event = slots.get((int) cursor & MASK);
+                if (event == null || event.sequence != cursor) break;
+                fileCursor.set(++cursor);
+            }
+        }
+    }
+
+    private void writeLine(String line) throws IOException {
+        if (out == null || fileSize >= MAX_FILE_BYTES) rotate();
+        out.write(line);
+        out.newLine();
+        fileSize += line.length() + 2L;
+    }
+
+    // La pornire continuă fișierul existent; când depășește limita, log -> log.1 -> ... -> log.N.
+    private void rotate() throws IOException {
+        if (out != null) {
+            closeFile();
+            for (int i = ROTATED_FILES - 1; i >= 1; i--) {
+                Path from = rotated(i);
+                if (Files.exists(from)) Files.move(from, rotated(i + 1), StandardCopyOption.REPLACE_EXISTING);
+            }
+            Files.move(logFile, rotated(1), StandardCopyOption.REPLACE_EXISTING);
+        }
+        out = Files.newBufferedWriter(logFile, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        fileSize = Files.size(logFile);
+    }
+
+    private Path rotated(int index) {
+        return logFile.resolveSibling(logFile.getFileName() + "." + index);
+    }
+
+    private void closeFile() {
+        if (out == null) return;
+        try {
+            out.close();
+        } catch (IOException ignored) {
+        }
+        out = null;
+    }
+
+    private static String format(long millis, String message) {
+        return "[" + TIME.format(Instant.ofEpochMilli(millis)) + "] " + message;
+    }
+}
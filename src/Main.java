@@ -1,6 +1,8 @@
+import javafx.animation.AnimationTimer;
 import javafx.application.Application;
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
+import javafx.event.ActionEvent;
 import javafx.collections.ObservableList;
 import javafx.geometry.Insets;
 import javafx.scene.Scene;
@@ -18,25 +20,80 @@ import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 public class Main extends Application {
+    private static final long SAVE_DEBOUNCE_MILLIS = 500;
+    private static final int MAX_VISIBLE_LOG_LINES = 500;
+
     private final ObservableList<BlockedApp> blockedObservable = FXCollections.observableArrayList();
     private final ObservableList<BlockedSite> blockedSites = FXCollections.observableArrayList();
     private final BlockedListStore store = new BlockedListStore();
     private final ParentalPasswordGuard passwordGuard = new ParentalPasswordGuard();
+    private final UsageCounters usageCounters = new UsageCounters();
+    private final UsageHistory usageHistory = new UsageHistory();
+    private final SiteUsageTracker siteUsage =
+            new SiteUsageTracker(new UsageCounters("site_usage_counters.bin"), this::onSiteLimitReached);
+    private final ExecutableHashCache hashCache = new ExecutableHashCache();
+    private MappedSiteTable importedSites = MappedSiteTable.empty();
     private ProcessMonitor monitor;
     private final TextArea logArea = new TextArea();
+    private final LogPipeline log = new LogPipeline();
+    // Lungimile liniilor afișate, pentru a tăia începutul când se depășește MAX_VISIBLE_LOG_LINES.
+    private final ArrayDeque<Integer> visibleLogLines = new ArrayDeque<>();
+    private final StringBuilder logBatch = new StringBuilder();
+    private final AnimationTimer logDrainer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            drainLog();
+        }
+    };
     private final Button startStopBtn = new Button("Start Monitoring");
     private final Label totalBlockedLabel = new Label();
     private final Label totalSitesLabel = new Label();
     private WebsiteBlocker websiteBlocker;
+    private DnsSinkhole dnsSinkhole;
+    private FilteringProxy filteringProxy;
+    // Regulile de site, compilate o dată pe firul StateWriter și folosite de hosts, DNS și proxy.
+    private volatile SiteRules siteRules;
+    // Recompilarea la următoarea graniță de program; folosit doar pe firul StateWriter.
+    private ScheduledFuture<?> siteBoundaryTask;
+    // Scrierile pe disc (listă, hosts) rulează aici, în ordine, nu pe firul JavaFX.
+    private final ScheduledExecutorService stateWriter = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "StateWriter");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicReference<PendingSave> pendingSave = new AtomicReference<>();
+
+    private static final class PendingSave {
+        private final List<BlockedApp> apps;
+        private final List<BlockedSite> sites;
+
+        private PendingSave(List<BlockedApp> apps, List<BlockedSite> sites) {
+            this.apps = apps;
+            this.sites = sites;
+        }
+    }
 
     public static void main(String[] args) {
         launch(args);
@@ -128,6 +185,7 @@ public class Main extends Application {
         logArea.setEditable(false);
         logArea.setPrefRowCount(8);
         logArea.setPromptText("Mesaje de jurnal...");
+        logDrainer.start();
 
         VBox appsBox = new VBox(8, table, controls, totalBlockedLabel);
         appsBox.setPadding(new Insets(8));
@@ -141,7 +199,8 @@ public class Main extends Application {
         appsTab.setClosable(false);
         Tab sitesTab = new Tab("Site-uri", sitesBox);
         sitesTab.setClosable(false);
-        tabs.getTabs().addAll(appsTab, sitesTab);
+        Tab reportsTab = buildReportsTab();
+        tabs.getTabs().addAll(appsTab, sitesTab, reportsTab);
 
         BorderPane root = new BorderPane();
         root.setCenter(tabs);
@@ -160,15 +219,23 @@ public class Main extends Application {
         stage.show();
 
         // load persisted list
+        store.setUsageCounters(usageCounters);
         try {
-            List<BlockedApp> loadedApps = store.loadApps();
-            List<BlockedSite> loadedSites = store.loadSites();
+            BlockedListStore.Contents contents = store.load();
+            List<BlockedApp> loadedApps = contents.getApps();
+            List<BlockedSite> loadedSites = contents.getSites();
+            loadedApps.forEach(usageCounters::seed);
             blockedObservable.addAll(loadedApps);
             blockedSites.addAll(loadedSites);
             appendLog("Liste încărcate: " + loadedApps.size() + " aplicații, " + loadedSites.size() + " site-uri.");
         } catch (IOException ex) {
             appendLog("Nu pot încărca listele: " + ex.getMessage());
         }
+        try {
+            importedSites = store.openImportedSites();
+        } catch (IOException ex) {
+            appendLog("Nu pot deschide lista de site-uri importate: " + ex.getMessage());
+        }
         updateTotals();
         updateSiteTotals();
         blockedObservable.addListener((javafx.collections.ListChangeListener<? super BlockedApp>) change -> updateTotals());
@@ -176,29 +243,72 @@ public class Main extends Application {
 
         // create monitor (uses a logger callback)
         Consumer<String> logger = this::appendLog;
-        monitor = new ProcessMonitor(blockedObservable, logger);
+        monitor = new ProcessMonitor(usageCounters, usageHistory, hashCache, logger);
+        monitor.publishRules(blockedObservable);
         websiteBlocker = new WebsiteBlocker(logger);
+        siteUsage.setSites(blockedSites);
+        refreshSiteRules();
         enforceImmediateBlocks();
 
         // ensure save on close
         stage.setOnCloseRequest(evt -> {
-            boolean allowExit = confirmExit();
-            if (!allowExit) {
-                evt.consume();
-                return;
-            }
-            if (monitor.isRunning()) monitor.stop();
-            try {
-                store.save(blockedObservable, blockedSites);
-            } catch (IOException ex) {
-                // best-effort
-            }
-            try {
-                websiteBlocker.removeAll(blockedSites);
-            } catch (IOException ex) {
-                // ignore on close
-            }
-            Platform.exit();
+            // fereastra se închide doar după confirmare (verificarea parolei este asincronă)
+            evt.consume();
+            confirmExit(this::shutdown);
+        });
+    }
+
+    private Tab buildReportsTab() {
+        TableView<UsageReportRow> table = new TableView<>();
+        TableColumn<UsageReportRow, String> appCol = new TableColumn<>("Aplicație");
+        appCol.setCellValueFactory(new PropertyValueFactory<>("appName"));
+        appCol.setPrefWidth(220);
+        TableColumn<UsageReportRow, String> totalCol = new TableColumn<>("Total (h:mm)");
+        totalCol.setCellValueFactory(new PropertyValueFactory<>("total"));
+        TableColumn<UsageReportRow, String> avgCol = new TableColumn<>("Medie pe zi");
+        avgCol.setCellValueFactory(new PropertyValueFactory<>("dailyAverage"));
+        TableColumn<UsageReportRow, String> trendCol = new TableColumn<>("Față de perioada anterioară");
+        trendCol.setCellValueFactory(new PropertyValueFactory<>("trend"));
+        trendCol.setPrefWidth(200);
+        table.getColumns().add(appCol);
+        table.getColumns().add(totalCol);
+        table.getColumns().add(avgCol);
+        table.getColumns().add(trendCol);
+
+        ComboBox<String> period = new ComboBox<>(FXCollections.observableArrayList(
+                "Azi", "Ultimele 7 zile", "Ultimele 30 zile", "Ultimul an"));
+        period.getSelectionModel().select(1);
+        Button refresh = new Button("Actualizează");
+        Runnable load = () -> loadReport(table, new int[]{1, 7, 30, 365}[period.getSelectionModel().getSelectedIndex()]);
+        period.setOnAction(e -> load.run());
+        refresh.setOnAction(e -> load.run());
+
+        HBox controls = new HBox(8, new Label("Perioadă:"), period, refresh);
+        VBox box = new VBox(8, controls, table);
+        box.setPadding(new Insets(8));
+        Tab tab = new Tab("Rapoarte", box);
+        tab.setClosable(false);
+        tab.setOnSelectionChanged(e -> {
+            if (tab.isSelected()) load.run();
+        });
+        return tab;
+    }
+
+    // Interogarea rulează pe firul de scriere; tabelul se completează apoi pe firul JavaFX.
+    private void loadReport(TableView<UsageReportRow> table, int days) {
+        Map<String, String> names = new HashMap<>();
+        blockedObservable.forEach(app -> names.put(app.getId(), app.getFriendlyName()));
+        LocalDate today = LocalDate.now();
+        LocalDate from = today.minusDays(days - 1L);
+        stateWriter.execute(() -> {
+            Map<String, Long> current = usageHistory.totals(from, today);
+            Map<String, Long> previous = usageHistory.totals(from.minusDays(days), from.minusDays(1));
+            List<UsageReportRow> rows = current.entrySet().stream()
+                    .map(e -> new UsageReportRow(names.getOrDefault(e.getKey(), "(aplicație ștearsă)"),
+                            e.getValue(), previous.getOrDefault(e.getKey(), 0L), days))
+                    .sorted(Comparator.comparingLong(UsageReportRow::getTotalMillis).reversed())
+                    .collect(Collectors.toList());
+            Platform.runLater(() -> table.getItems().setAll(rows));
         });
     }
 
@@ -210,7 +320,9 @@ public class Main extends Application {
         domainCol.setCellValueFactory(new PropertyValueFactory<>("urlPattern"));
         TableColumn<BlockedSite, String> statusCol = new TableColumn<>("Stare");
         statusCol.setCellValueFactory(new PropertyValueFactory<>("statusLabel"));
-        table.getColumns().addAll(titleCol, domainCol, statusCol);
+        TableColumn<BlockedSite, String> scheduleCol = new TableColumn<>("Program");
+        scheduleCol.setCellValueFactory(new PropertyValueFactory<>("scheduleSummary"));
+        table.getColumns().addAll(titleCol, domainCol, statusCol, scheduleCol);
         table.setEditable(true);
         return table;
     }
@@ -221,6 +333,8 @@ public class Main extends Application {
         Button removeSite = new Button("Șterge site");
         Button blockSite = new Button("Blochează site");
         Button unblockSite = new Button("Deblochează site");
+        Button importSites = new Button("Importă listă...");
+        Button exportSites = new Button("Exportă listă...");
 
         addSite.setOnAction(e -> requirePasswordAndRun(ProtectedAction.CHANGE_SETTINGS, () -> onAddOrEditSite(table, null)));
         editSite.setOnAction(e -> requirePasswordAndRun(ProtectedAction.CHANGE_SETTINGS, () -> {
@@ -240,10 +354,173 @@ public class Main extends Application {
         }));
         blockSite.setOnAction(e -> requirePasswordAndRun(ProtectedAction.CHANGE_SETTINGS, () -> blockSite(table)));
         unblockSite.setOnAction(e -> requirePasswordAndRun(ProtectedAction.CHANGE_SETTINGS, () -> unblockSite(table)));
+        importSites.setOnAction(e -> requirePasswordAndRun(ProtectedAction.CHANGE_SETTINGS, () -> importSiteList(table)));
+        exportSites.setOnAction(e -> exportSiteList(table));
 
         HBox line = new HBox(8, addSite, editSite, removeSite, blockSite, unblockSite);
         line.setPadding(new Insets(0, 0, 0, 0));
-        return new VBox(8, line);
+        CheckBox dnsBox = new CheckBox("Resolver DNS local (blochează și subdomeniile)");
+        TextField upstreamField = new TextField("1.1.1.1");
+        upstreamField.setPromptText("Server DNS în amonte");
+        upstreamField.setPrefColumnCount(12);
+        dnsBox.setOnAction(e -> {
+            boolean wanted = dnsBox.isSelected();
+            dnsBox.setSelected(!wanted);
+            requirePasswordAndRun(ProtectedAction.CHANGE_SETTINGS, () -> {
+                dnsBox.setSelected(wanted);
+                upstreamField.setDisable(wanted);
+                toggleDnsSinkhole(wanted, upstreamField.getText(), () -> {
+                    dnsBox.setSelected(false);
+                    upstreamField.setDisable(false);
+                });
+            });
+        });
+
+        CheckBox proxyBox = new CheckBox("Proxy local de filtrare (după nume, și pentru HTTPS)");
+        TextField proxyPortField = new TextField("8899");
+        proxyPortField.setPrefColumnCount(5);
+        proxyBox.setOnAction(e -> {
+            boolean wanted = proxyBox.isSelected();
+            proxyBox.setSelected(!wanted);
+            requirePasswordAndRun(ProtectedAction.CHANGE_SETTINGS, () -> {
+                int port;
+                try {
+                    port = Integer.parseInt(proxyPortField.getText().trim());
+                } catch (NumberFormatException ex) {
+                    appendLog("Port invalid pentru proxy: " + proxyPortField.getText());
+                    return;
+                }
+                proxyBox.setSelected(wanted);
+                proxyPortField.setDisable(wanted);
+                toggleFilteringProxy(wanted, port, () -> {
+                    proxyBox.setSelected(false);
+                    proxyPortField.setDisable(false);
+                });
+            });
+        });
+
+        HBox bulk = new HBox(8, importSites, exportSites);
+        HBox dns = new HBox(8, dnsBox, new Label("Amonte:"), upstreamField);
+        HBox proxy = new HBox(8, proxyBox, new Label("Port:"), proxyPortField);
+        return new VBox(8, line, bulk, dns, proxy);
+    }
+
+    // filteringProxy se setează abia după ce proxy-ul a pornit; onFailed (pe firul JavaFX)
+    // readuce controalele în starea "oprit" dacă pornirea eșuează (ex. port ocupat).
+    // Regulile se recompilează la pornire/oprire: site-urile cu limită zilnică sunt blocate
+    // integral cât timp proxy-ul, singurul care le măsoară consumul, nu rulează.
+    private void toggleFilteringProxy(boolean enable, int port, Runnable onFailed) {
+        if (!enable) {
+            if (filteringProxy != null) {
+                FilteringProxy stopping = filteringProxy;
+                filteringProxy = null;
+                stateWriter.execute(stopping::stop);
+                refreshSiteRules();
+            }
+            return;
+        }
+        FilteringProxy proxy = new FilteringProxy(new java.net.InetSocketAddress("127.0.0.1", port), this::appendLog);
+        proxy.setActivityListener(siteUsage::onActivity);
+        stateWriter.execute(() -> {
+            try {
+                SiteRules rules = siteRules;
+                if (rules != null) proxy.setRules(rules);
+                proxy.start();
+                appendLog("Setați proxy-ul HTTP/HTTPS al sistemului la 127.0.0.1:" + port + ".");
+            } catch (IOException | RuntimeException ex) {
+                appendLog("Proxy-ul de filtrare nu a putut porni: " + ex.getMessage());
+                Platform.runLater(onFailed);
+                return;
+            }
+            Platform.runLater(() -> {
+                filteringProxy = proxy;
+                refreshSiteRules();
+            });
+        });
+    }
+
+    // Ca la proxy: numele serverului din amonte se rezolvă pe StateWriter, iar dnsSinkhole se
+    // setează doar după pornire; onFailed readuce controalele în starea "oprit".
+    private void toggleDnsSinkhole(boolean enable, String upstreamHost, Runnable onFailed) {
+        if (!enable) {
+            if (dnsSinkhole != null) {
+                DnsSinkhole stopping = dnsSinkhole;
+                dnsSinkhole = null;
+                stateWriter.execute(stopping::stop);
+            }
+            return;
+        }
+        List<BlockedSite> sites = blockedSites.stream().map(BlockedSite::new).collect(Collectors.toList());
+        MappedSiteTable imported = importedSites;
+        boolean usageMeasured = filteringProxy != null;
+        stateWriter.execute(() -> {
+            DnsSinkhole sinkhole;
+            try {
+                java.net.InetSocketAddress upstream = new java.net.InetSocketAddress(upstreamHost.trim(), 53);
+                if (upstream.isUnresolved()) {
+                    throw new IOException("serverul din amonte " + upstreamHost.trim() + " nu poate fi găsit");
+                }
+                sinkhole = new DnsSinkhole(new java.net.InetSocketAddress("127.0.0.1", 53), upstream, this::appendLog);
+                SiteRules rules = siteRules;
+                sinkhole.setBlocked(rules != null ? rules
+                        : SiteRules.of(sites, imported, LocalDateTime.now(), usageMeasured, siteUsage::getMillisToday));
+                sinkhole.start();
+                appendLog("Setați serverul DNS al conexiunii la 127.0.0.1 pentru a folosi resolverul local.");
+            } catch (IOException | RuntimeException ex) {
+                appendLog("Resolverul DNS nu a putut porni: " + ex.getMessage());
+                Platform.runLater(onFailed);
+                return;
+            }
+            Platform.runLater(() -> {
+                dnsSinkhole = sinkhole;
+                // o recompilare pornită între timp nu știa de resolver; regulile ei ajung aici, după ea
+                stateWriter.execute(() -> {
+                    SiteRules current = siteRules;
+                    if (current != null) sinkhole.setBlocked(current);
+                });
+            });
+        });
+    }
+
+    private void importSiteList(TableView<BlockedSite> table) {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Importă listă de site-uri");
+        java.io.File file = chooser.showOpenDialog(table.getScene().getWindow());
+        if (file == null) return;
+        MappedSiteTable current = importedSites;
+        appendLog("Import în curs: " + file.getName());
+        stateWriter.execute(() -> {
+            try {
+                MappedSiteTable updated = store.importSiteList(file.toPath(), current);
+                Platform.runLater(() -> {
+                    importedSites = updated;
+                    appendLog("Import finalizat: " + (updated.size() - current.size()) + " domenii noi din " + file.getName());
+                    updateSiteTotals();
+                    applySiteBlocking();
+                });
+            } catch (IOException ex) {
+                appendLog("Importul a eșuat: " + ex.getMessage());
+            }
+        });
+    }
+
+    private void exportSiteList(TableView<BlockedSite> table) {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle("Exportă lista de site-uri importate");
+        chooser.setInitialFileName("site-uri.txt");
+        java.io.File file = chooser.showSaveDialog(table.getScene().getWindow());
+        if (file == null) return;
+        // lista importată poate avea milioane de intrări: se scrie pe StateWriter, ca importul
+        MappedSiteTable current = importedSites;
+        appendLog("Export în curs: " + file.getName());
+        stateWriter.execute(() -> {
+            try {
+                store.exportSitesText(current, file.toPath());
+                Platform.runLater(() -> appendLog("Exportate " + current.size() + " intrări în " + file.getName()));
+            } catch (IOException ex) {
+                Platform.runLater(() -> appendLog("Exportul a eșuat: " + ex.getMessage()));
+            }
+        });
     }
 
     private void onAddOrEdit(TableView<BlockedApp> table, BlockedApp existing) {
@@ -257,23 +534,28 @@ public class Main extends Application {
         TextField nameField = new TextField();
         TextField exeField = new TextField();
         TextField pathField = new TextField();
+        TextField commandLineField = new TextField();
         TextField limitField = new TextField();
         TextField scheduleField = new TextField();
         CheckBox immediateBox = new CheckBox("Aplică blocarea imediată (nu permite rularea)");
+        CheckBox contentBox = new CheckBox("Recunoaște executabilul și dacă este redenumit (SHA-256)");
 
         nameField.setPromptText("Nume ușor de recunoscut");
         exeField.setPromptText("ex: chrome.exe");
         pathField.setPromptText("Cale completă (opțional)");
+        commandLineField.setPromptText("ex: minecraft.jar (opțional, separate prin virgule)");
         limitField.setPromptText("Minute permis/zi (0 nelimitat)");
-        scheduleField.setPromptText("Intervale HH:mm-HH:mm separate prin virgule");
+        scheduleField.setPromptText("ex: 16:00-18:00 sau Lu-Vi 16:00-18:00, Sa-Du 10:00-20:00");
 
         if (editMode) {
             nameField.setText(existing.getDisplayName());
             exeField.setText(existing.getExeName());
             pathField.setText(existing.getExePath());
+            commandLineField.setText(existing.getCommandLinePattern());
             limitField.setText(existing.getDailyLimitMinutes() == 0 ? "" : Integer.toString(existing.getDailyLimitMinutes()));
             scheduleField.setText(existing.getAllowedIntervals());
             immediateBox.setSelected(existing.isBlockImmediately());
+            contentBox.setSelected(existing.getContentSha256() != null);
         }
 
         Button browseBtn = new Button("Răsfoiește...");
@@ -306,27 +588,57 @@ public class Main extends Application {
         grid.add(new Label("Cale"), 0, 2);
         HBox pathBox = new HBox(8, pathField, browseBtn);
         grid.add(pathBox, 1, 2);
-        grid.add(new Label("Limită zilnică"), 0, 3);
-        grid.add(limitField, 1, 3);
-        grid.add(new Label("Intervale permise"), 0, 4);
-        grid.add(scheduleField, 1, 4);
-        grid.add(new Label("Blocare instant"), 0, 5);
-        grid.add(immediateBox, 1, 5);
+        grid.add(new Label("Linia de comandă conține"), 0, 3);
+        grid.add(commandLineField, 1, 3);
+        grid.add(new Label("Limită zilnică"), 0, 4);
+        grid.add(limitField, 1, 4);
+        grid.add(new Label("Intervale permise"), 0, 5);
+        grid.add(scheduleField, 1, 5);
+        grid.add(new Label("Blocare instant"), 0, 6);
+        grid.add(immediateBox, 1, 6);
+        grid.add(new Label("Amprentă conținut"), 0, 7);
+        grid.add(contentBox, 1, 7);
 
         dialog.getDialogPane().setContent(grid);
 
+        dialog.getDialogPane().lookupButton(okType).addEventFilter(ActionEvent.ACTION, evt -> {
+            if (contentBox.isSelected() && safeText(pathField).isEmpty()) {
+                Alert alert = new Alert(Alert.AlertType.ERROR);
+                alert.setTitle("Amprentă conținut");
+                alert.setHeaderText("Alegeți calea executabilului");
+                alert.setContentText("Amprenta SHA-256 se calculează din fișierul indicat la „Cale”.");
+                alert.showAndWait();
+                evt.consume();
+                return;
+            }
+            String schedule = safeText(scheduleField);
+            if (schedule.isEmpty()) return;
+            try {
+                AppSchedule.parse(schedule);
+            } catch (IllegalArgumentException ex) {
+                Alert alert = new Alert(Alert.AlertType.ERROR);
+                alert.setTitle("Intervale permise");
+                alert.setHeaderText("Programul nu este valid");
+                alert.setContentText(ex.getMessage());
+                alert.showAndWait();
+                evt.consume();
+            }
+        });
+
         dialog.setResultConverter(btn -> {
             if (btn == okType) {
                 String name = safeText(nameField);
                 String exe = safeText(exeField);
                 String path = safeText(pathField);
+                String commandLine = safeText(commandLineField);
                 String limit = safeText(limitField);
                 String schedule = safeText(scheduleField);
-                if (exe.isEmpty() && path.isEmpty()) return null;
+                if (exe.isEmpty() && path.isEmpty() && commandLine.isEmpty()) return null;
                 BlockedApp target = editMode ? existing : new BlockedApp();
-                target.setDisplayName(name.isEmpty() ? exe : name);
+                target.setDisplayName(name.isEmpty() ? (exe.isEmpty() ? commandLine : exe) : name);
                 target.setExeName(exe);
                 target.setExePath(path.isEmpty() ? null : path);
+                target.setCommandLinePattern(commandLine.isEmpty() ? null : commandLine);
                 target.setDailyLimitMinutes(parseInt(limit));
                 target.setAllowedIntervals(schedule.isEmpty() ? null : schedule);
                 if (!editMode) {
@@ -337,6 +649,9 @@ public class Main extends Application {
                     target.setEnabled(true);
                 }
                 target.setBlockImmediately(immediateSelected);
+                if (!contentBox.isSelected()) {
+                    target.setContentSha256(null);
+                }
                 return target;
             }
             return null;
@@ -354,9 +669,31 @@ public class Main extends Application {
                 monitor.blockNow(app);
             }
             saveState();
+            if (contentBox.isSelected()) {
+                updateContentHash(table, app);
+            }
         });
     }
 
+    private void updateContentHash(TableView<BlockedApp> table, BlockedApp app) {
+        String path = app.getExePath();
+        hashCache.hashAsync(path).whenComplete((sha256, err) -> Platform.runLater(() -> {
+            if (err != null) {
+                appendLog("Nu pot calcula amprenta pentru " + path + ": " + err.getMessage());
+                return;
+            }
+            if (!path.equals(app.getExePath()) || sha256.equals(app.getContentSha256())) {
+                return;
+            }
+            app.setContentSha256(sha256);
+            appendLog("Amprentă SHA-256 salvată pentru " + app.getFriendlyName() + ".");
+            if (table != null) {
+                table.refresh();
+            }
+            saveState();
+        }));
+    }
+
     private void onToggleMonitor() {
         if (monitor.isRunning()) {
             monitor.stop();
@@ -369,9 +706,32 @@ public class Main extends Application {
         }
     }
 
+    // Apelabil de pe orice fir: doar pune mesajul în inelul jurnalului; afișarea și fișierul vin ulterior.
     private void appendLog(String message) {
-        String time = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
-        Platform.runLater(() -> logArea.appendText("[" + time + "] " + message + "\n"));
+        log.log(message);
+    }
+
+    // Pe firul JavaFX, o dată pe cadru: o singură modificare a zonei de text pentru toate mesajele noi.
+    private void drainLog() {
+        logBatch.setLength(0);
+        int added = log.drainToView(line -> {
+            logBatch.append(line).append('\n');
+            visibleLogLines.addLast(line.length() + 1);
+        });
+        if (added == 0) return;
+        int removedChars = 0;
+        while (visibleLogLines.size() > MAX_VISIBLE_LOG_LINES) {
+            removedChars += visibleLogLines.removeFirst();
+        }
+        int existing = logArea.getLength();
+        if (removedChars >= existing) {
+            // tot ce era afișat iese din istoric; rămâne doar coada lotului nou
+            logArea.setText(logBatch.substring(removedChars - existing));
+            logArea.positionCaret(logArea.getLength());
+        } else {
+            if (removedChars > 0) logArea.deleteText(0, removedChars);
+            logArea.appendText(logBatch.toString());
+        }
     }
 
     private void updateTotals() {
@@ -379,7 +739,11 @@ public class Main extends Application {
     }
 
     private void updateSiteTotals() {
-        totalSitesLabel.setText("Site-uri blocate: " + blockedSites.size());
+        String text = "Site-uri blocate: " + blockedSites.size();
+        if (importedSites.size() > 0) {
+            text += " (+ " + importedSites.size() + " importate)";
+        }
+        totalSitesLabel.setText(text);
     }
 
     private int parseInt(String value) {
@@ -419,70 +783,117 @@ public class Main extends Application {
                 appendLog("Parola trebuie să aibă minim 4 caractere.");
                 return;
             }
-            try {
-                passwordGuard.setPassword(pass1.getText().toCharArray());
+            // calculul PBKDF2 rulează pe firul PasswordVerifier, nu pe cel al interfeței
+            trigger.setDisable(true);
+            passwordGuard.setPasswordAsync(pass1.getText().toCharArray()).whenComplete((ignored, error) -> Platform.runLater(() -> {
+                trigger.setDisable(false);
+                if (error != null) {
+                    Throwable cause = error.getCause() != null ? error.getCause() : error;
+                    appendLog("Nu pot salva parola: " + cause.getMessage());
+                    return;
+                }
                 appendLog("Parola parentală a fost actualizată.");
                 trigger.setText("Schimbă parola");
-            } catch (IOException ex) {
-                appendLog("Nu pot salva parola: " + ex.getMessage());
-            }
+            }));
         });
     }
 
+    // Cu o sesiune de autorizare încă validă pentru aceeași acțiune, parola nu mai este cerută.
     private void requirePasswordAndRun(ProtectedAction action, Runnable task) {
-        if (!passwordGuard.isPasswordSet()) {
+        if (!passwordGuard.isPasswordSet() || passwordGuard.hasSession(action)) {
             task.run();
             return;
         }
+        promptPassword("Confirmare securitate", "Introduceți parola pentru a continua", () -> {
+            passwordGuard.startSession(action);
+            task.run();
+        }, "Acțiune anulată.");
+    }
+
+    // Verificarea rulează pe firul PasswordVerifier; dialogul rămâne deschis cu un indicator de
+    // progres și, la o parolă greșită, permite o nouă încercare.
+    private void promptPassword(String title, String header, Runnable onVerified, String cancelMessage) {
         PasswordField field = new PasswordField();
         field.setPromptText("Parola parentală");
+        ProgressIndicator progress = new ProgressIndicator();
+        progress.setPrefSize(18, 18);
+        progress.setVisible(false);
+        Label status = new Label();
         Dialog<ButtonType> dialog = new Dialog<>();
-        dialog.setTitle("Confirmare securitate");
-        dialog.setHeaderText("Introduceți parola pentru a continua");
+        dialog.setTitle(title);
+        dialog.setHeaderText(header);
         dialog.getDialogPane().getButtonTypes().addAll(ButtonType.OK, ButtonType.CANCEL);
-        dialog.getDialogPane().setContent(field);
-        Optional<ButtonType> res = dialog.showAndWait();
-        if (res.isPresent() && res.get() == ButtonType.OK) {
-            try {
-                if (passwordGuard.verifyPassword(field.getText().toCharArray())) {
-                    task.run();
-                    return;
+        dialog.getDialogPane().setContent(new VBox(8, field, new HBox(8, progress, status)));
+        Button okButton = (Button) dialog.getDialogPane().lookupButton(ButtonType.OK);
+        boolean[] verified = {false};
+        okButton.addEventFilter(ActionEvent.ACTION, evt -> {
+            evt.consume();
+            okButton.setDisable(true);
+            field.setDisable(true);
+            progress.setVisible(true);
+            status.setText("Se verifică parola...");
+            passwordGuard.verifyPasswordAsync(field.getText().toCharArray()).whenComplete((valid, error) -> Platform.runLater(() -> {
+                if (!dialog.isShowing()) return;
+                progress.setVisible(false);
+                okButton.setDisable(false);
+                field.setDisable(false);
+                if (error != null) {
+                    Throwable cause = error.getCause() != null ? error.getCause() : error;
+                    status.setText("Nu pot verifica parola: " + cause.getMessage());
+                } else if (valid) {
+                    verified[0] = true;
+                    dialog.setResult(ButtonType.OK);
+                    dialog.close();
+                } else {
+                    appendLog("Parola incorectă.");
+                    status.setText("Parola incorectă.");
+                    field.selectAll();
+                    field.requestFocus();
                 }
-                appendLog("Parola incorectă.");
-            } catch (IOException ex) {
-                appendLog("Nu pot verifica parola: " + ex.getMessage());
-            }
+            }));
+        });
+        dialog.showAndWait();
+        if (verified[0]) {
+            onVerified.run();
         } else {
-            appendLog("Acțiune anulată.");
+            appendLog(cancelMessage);
         }
     }
 
-    private boolean confirmExit() {
-        if (!passwordGuard.isPasswordSet()) {
-            return showExitDialog();
+    private void shutdown() {
+        if (monitor.isRunning()) monitor.stop();
+        if (dnsSinkhole != null) dnsSinkhole.stop();
+        if (filteringProxy != null) filteringProxy.stop();
+        blockedObservable.forEach(usageCounters::copyTo);
+        usageCounters.flush();
+        usageHistory.flush();
+        siteUsage.flush();
+        logDrainer.stop();
+        PendingSave last = snapshotState();
+        // pe același fir, după orice salvare încă în așteptare
+        try {
+            stateWriter.submit(() -> {
+                pendingSave.set(null);
+                store.save(last.apps, last.sites);
+                websiteBlocker.removeAll(last.sites);
+                return null;
+            }).get(5, TimeUnit.SECONDS);
+        } catch (InterruptedException | ExecutionException | TimeoutException ex) {
+            // best-effort
         }
-        PasswordField field = new PasswordField();
-        field.setPromptText("Parola parentală");
-        Dialog<ButtonType> dialog = new Dialog<>();
-        dialog.setTitle("Confirmare ieșire");
-        dialog.setHeaderText("Aplicația necesită parola pentru a ieși");
-        dialog.getDialogPane().getButtonTypes().addAll(ButtonType.OK, ButtonType.CANCEL);
-        dialog.getDialogPane().setContent(field);
-        Optional<ButtonType> res = dialog.showAndWait();
-        if (res.isPresent() && res.get() == ButtonType.OK) {
-            try {
-                if (passwordGuard.verifyPassword(field.getText().toCharArray())) {
-                    return showExitDialog();
-                }
-                appendLog("Parola incorectă.");
-                return false;
-            } catch (IOException ex) {
-                appendLog("Nu pot verifica parola: " + ex.getMessage());
-                return false;
-            }
+        log.close();
+        Platform.exit();
+    }
+
+    private void confirmExit(Runnable onConfirmed) {
+        Runnable ask = () -> {
+            if (showExitDialog()) onConfirmed.run();
+        };
+        if (!passwordGuard.isPasswordSet()) {
+            ask.run();
+            return;
         }
-        appendLog("Ieșirea a fost anulată.");
-        return false;
+        promptPassword("Confirmare ieșire", "Aplicația necesită parola pentru a ieși", ask, "Ieșirea a fost anulată.");
     }
 
     private boolean showExitDialog() {
@@ -505,16 +916,38 @@ public class Main extends Application {
         titleField.setPromptText("Descriere scurtă");
         TextField urlField = new TextField();
         urlField.setPromptText("ex: https://example.com");
+        TextField limitField = new TextField();
+        limitField.setPromptText("Minute permis/zi (0 nelimitat, necesită proxy-ul)");
+        TextField scheduleField = new TextField();
+        scheduleField.setPromptText("Gol = blocat mereu; ex: Lu-Vi 16:00-18:00");
 
         if (editMode) {
             titleField.setText(existing.getTitle());
             urlField.setText(existing.getUrlPattern());
+            limitField.setText(existing.getDailyLimitMinutes() == 0 ? "" : Integer.toString(existing.getDailyLimitMinutes()));
+            scheduleField.setText(existing.getAllowedIntervals());
         }
 
-        VBox box = new VBox(8, new Label("Descriere"), titleField, new Label("Link / domeniu"), urlField);
+        VBox box = new VBox(8, new Label("Descriere"), titleField, new Label("Link / domeniu"), urlField,
+                new Label("Limită zilnică"), limitField, new Label("Intervale permise"), scheduleField);
         box.setPadding(new Insets(12));
         dialog.getDialogPane().setContent(box);
 
+        dialog.getDialogPane().lookupButton(okType).addEventFilter(ActionEvent.ACTION, evt -> {
+            String schedule = safeText(scheduleField);
+            if (schedule.isEmpty()) return;
+            try {
+                AppSchedule.parse(schedule);
+            } catch (IllegalArgumentException ex) {
+                Alert alert = new Alert(Alert.AlertType.ERROR);
+                alert.setTitle("Intervale permise");
+                alert.setHeaderText("Programul nu este valid");
+                alert.setContentText(ex.getMessage());
+                alert.showAndWait();
+                evt.consume();
+            }
+        });
+
         dialog.setResultConverter(btn -> {
             if (btn == okType) {
                 String url = safeText(urlField);
@@ -523,6 +956,9 @@ public class Main extends Application {
                 String title = safeText(titleField);
                 target.setTitle(title.isEmpty() ? url : title);
                 target.setUrlPattern(url);
+                target.setDailyLimitMinutes(parseInt(safeText(limitField)));
+                String schedule = safeText(scheduleField);
+                target.setAllowedIntervals(schedule.isEmpty() ? null : schedule);
                 if (!editMode) {
                     target.setEnabled(true);
                 }
@@ -543,16 +979,62 @@ public class Main extends Application {
     }
 
     private void applySiteBlocking() {
-        try {
-            websiteBlocker.apply(blockedSites);
-            long activeCount = blockedSites.stream().filter(BlockedSite::isEnabled).count();
-            appendLog("Blocare site-uri aplicată pentru " + activeCount + " intrări active.");
-        } catch (IOException ex) {
-            appendLog("Blocarea site-urilor a eșuat: " + ex.getMessage());
-        }
+        siteUsage.setSites(blockedSites);
+        refreshSiteRules();
         saveState();
     }
 
+    // Recompilează regulile și rescrie hosts (doar dacă secțiunea diferă). Pe lângă modificările
+    // listei, rulează numai la granițele de program precalculate și la epuizarea unei limite.
+    private void refreshSiteRules() {
+        List<BlockedSite> sites = blockedSites.stream().map(BlockedSite::new).collect(Collectors.toList());
+        MappedSiteTable imported = importedSites;
+        DnsSinkhole sinkhole = dnsSinkhole;
+        FilteringProxy proxy = filteringProxy;
+        stateWriter.execute(() -> {
+            SiteRules rules = SiteRules.of(sites, imported, LocalDateTime.now(), proxy != null, siteUsage::getMillisToday);
+            siteRules = rules;
+            scheduleSiteBoundary(rules.getNextChange());
+            if (sinkhole != null) {
+                sinkhole.setBlocked(rules);
+            }
+            if (proxy != null) {
+                proxy.setRules(rules);
+            }
+            try {
+                websiteBlocker.apply(rules);
+                long activeCount = sites.stream().filter(BlockedSite::isEnabled).count();
+                appendLog("Blocare site-uri aplicată pentru " + activeCount + " intrări active.");
+                if (proxy == null && sites.stream().anyMatch(s -> s.isEnabled() && s.hasDailyLimit())) {
+                    appendLog("Site-urile cu limită zilnică rămân blocate până la pornirea proxy-ului de filtrare.");
+                }
+            } catch (IOException ex) {
+                appendLog("Blocarea site-urilor a eșuat: " + ex.getMessage());
+            }
+        });
+    }
+
+    private void scheduleSiteBoundary(LocalDateTime at) {
+        if (siteBoundaryTask != null) {
+            siteBoundaryTask.cancel(false);
+            siteBoundaryTask = null;
+        }
+        if (at == null) {
+            return;
+        }
+        long delay = Math.max(0, Duration.between(LocalDateTime.now(), at).toMillis());
+        siteBoundaryTask = stateWriter.schedule(() -> Platform.runLater(this::refreshSiteRules), delay, TimeUnit.MILLISECONDS);
+    }
+
+    // Apelat de pe firul proxy-ului.
+    private void onSiteLimitReached(String siteId) {
+        Platform.runLater(() -> {
+            blockedSites.stream().filter(s -> s.getId().equals(siteId)).findFirst()
+                    .ifPresent(s -> appendLog("Limita zilnică a fost atinsă pentru " + s.getDisplayDomain() + "."));
+            refreshSiteRules();
+        });
+    }
+
     private void unblockApp(TableView<BlockedApp> table) {
         BlockedApp selected = table.getSelectionModel().getSelectedItem();
         if (selected == null) {
@@ -603,13 +1085,34 @@ public class Main extends Application {
         }
     }
 
+    // Modificările rapide (ex. mai multe bife la rând) produc cel mult o scriere la SAVE_DEBOUNCE_MILLIS.
     private void saveState() {
+        blockedObservable.forEach(usageCounters::copyTo);
+        if (pendingSave.getAndSet(snapshotState()) == null) {
+            stateWriter.schedule(this::writePendingSave, SAVE_DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+        }
+        if (monitor != null) {
+            monitor.publishRules(blockedObservable);
+        }
+        enforceImmediateBlocks();
+    }
+
+    private PendingSave snapshotState() {
+        return new PendingSave(
+                blockedObservable.stream().map(BlockedApp::new).collect(Collectors.toList()),
+                blockedSites.stream().map(BlockedSite::new).collect(Collectors.toList()));
+    }
+
+    private void writePendingSave() {
+        PendingSave state = pendingSave.getAndSet(null);
+        if (state == null) {
+            return;
+        }
         try {
-            store.save(blockedObservable, blockedSites);
+            store.save(state.apps, state.sites);
         } catch (IOException ex) {
             appendLog("Eroare la salvarea automată: " + ex.getMessage());
         }
-        enforceImmediateBlocks();
     }
 
     private void enforceImmediateBlocks() {
@@ -625,8 +1128,8 @@ public class Main extends Application {
             Platform.runLater(() -> startStopBtn.setText("Opreste monitorizarea"));
             appendLog("Monitorizarea a pornit automat pentru blocările imediate.");
         }
-        blockedObservable.stream()
+        monitor.blockNow(blockedObservable.stream()
                 .filter(BlockedApp::isBlockImmediately)
-                .forEach(monitor::blockNow);
+                .collect(Collectors.toList()));
     }
 }
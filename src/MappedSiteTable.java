@@ -0,0 +1,237 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.Consumer;
+
+// Format binar pentru liste mari de site-uri, citit printr-un FileChannel mapat în memorie.
+// Intrările sunt decodate doar la cerere; nu se creează câte un BlockedSite la pornire.
+//
+// Antet (32 octeți): magic "PCSB", versiune, nr. intrări, nr. șiruri,
+//                    offset intrări, offset index șiruri, offset date șiruri, rezervat
+// Intrări (16 octeți fiecare): index id, index titlu, index url, flags (bit 0 = activ)
+// Index șiruri: (nr. șiruri + 1) offseturi int în zona de date (ultimul = sfârșitul)
+// Date șiruri: UTF-8, fiecare șir distinct o singură dată (internare)
+public final class MappedSiteTable {
+    private static final int MAGIC = 0x50435342; // "PCSB"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int ENTRY_SIZE = 16;
+    private static final int FLAG_ENABLED = 1;
+    private static final MappedSiteTable EMPTY = new MappedSiteTable(null, 0, 0, 0, 0);
+
+    private final ByteBuffer buffer;
+    private final int count;
+    private final int entriesOffset;
+    private final int stringIndexOffset;
+    private final int stringDataOffset;
+
+    private MappedSiteTable(ByteBuffer buffer, int count, int entriesOffset, int stringIndexOffset, int stringDataOffset) {
+        this.buffer = buffer;
+        this.count = count;
+        this.entriesOffset = entriesOffset;
+        this.stringIndexOffset = stringIndexOffset;
+        this.stringDataOffset = stringDataOffset;
+    }
+
+    public static MappedSiteTable empty() {
+        return EMPTY;
+    }
+
+    public static MappedSiteTable open(Path file) throws IOException {
+        MappedByteBuffer mapped;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (ch.size() < HEADER_SIZE || ch.size() > Integer.MAX_VALUE) {
+                throw new IOException("Fișier binar invalid: " + file);
+            }
+            mapped = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+        }
+        if (mapped.getInt(0) != MAGIC) {
+            throw new IOException("Fișier binar invalid (magic): " + file);
+        }
+        int version = mapped.getInt(4);
+        if (version != VERSION) {
+            throw new IOException("Versiune necunoscută " + version + " pentru " + file);
+        }
+        return new MappedSiteTable(mapped, mapped.getInt(8), mapped.getInt(16), mapped.getInt(20), mapped.getInt(24));
+    }
+
+    // Construiește tabela în tablouri primitive; pentru importurile mari nu se creează obiecte per intrare.
+    public static final class Builder {
+        private final Map<String, Integer> interned = new HashMap<>();
+        private int[] entries = new int[4 * 1024];
+        private int entryCount;
+        private byte[] strings = new byte[64 * 1024];
+        private int stringsSize;
+        private int[] stringEnds = new int[1024];
+        private int stringCount;
+
+        public int size() {
+            return entryCount;
+        }
+
+        // Doar rândurile cu id sau titlu (scrise de utilizator) sunt internate; o intrare importată
+        // copiată dintr-o tabelă existentă sau dintr-un export merge pe calea addDomain, ca
+        // reimportul unei liste mari să nu adauge câte un șir și o intrare în HashMap pe domeniu.
+        public Builder add(String id, String title, String urlPattern, boolean enabled) {
+            if (isEmpty(id) && isEmpty(title)) {
+                return addDomain(urlPattern == null ? "" : urlPattern, enabled);
+            }
+            return addEntry(intern(id), intern(title), intern(urlPattern), enabled);
+        }
+
+        // Domeniu importat dintr-o listă: fără id și titlu proprii, iar domeniul (deja unic) nu mai e internat.
+        public Builder addDomain(String domain) {
+            return addDomain(domain, true);
+        }
+
+        private Builder addDomain(String domain, boolean enabled) {
+            return addEntry(intern(""), intern(""), appendString(domain), enabled);
+        }
+
+        private static boolean isEmpty(String value) {
+            return value == null || value.isEmpty();
+        }
+
+        private Builder addEntry(int id, int title, int url, boolean enabled) {
+            if ((entryCount + 1) * 4 > entries.length) {
+                entries = Arrays.copyOf(entries, entries.length * 2);
+            }
+            int base = entryCount * 4;
+            entries[base] = id;
+            entries[base + 1] = title;
+            entries[base + 2] = url;
+            entries[base + 3] = enabled ? FLAG_ENABLED : 0;
+            entryCount++;
+            return this;
+        }
+
+        private int intern(String value) {
+            String key = value == null ? "" : value;
+            Integer index = interned.get(key);
+            if (index == null) {
+                index = appendString(key);
+                interned.put(key, index);
+            }
+            return index;
+        }
+
+        private int appendString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            if (stringsSize + bytes.length > strings.length) {
+                strings = Arrays.copyOf(strings, Math.max(strings.length * 2, stringsSize + bytes.length));
+            }
+            System.arraycopy(bytes, 0, strings, stringsSize, bytes.length);
+            stringsSize += bytes.length;
+            if (stringCount == stringEnds.length) {
+                stringEnds = Arrays.copyOf(stringEnds, stringCount * 2);
+            }
+            stringEnds[stringCount] = stringsSize;
+            return stringCount++;
+        }
+
+        public void write(Path file) throws IOException {
+            int entriesOffset = HEADER_SIZE;
+            int stringIndexOffset = entriesOffset + entryCount * ENTRY_SIZE;
+            int stringDataOffset = stringIndexOffset + (stringCount + 1) * 4;
+            try (OutputStream os = Files.newOutputStream(file);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(os, 64 * 1024))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeInt(entryCount);
+                out.writeInt(stringCount);
+                out.writeInt(entriesOffset);
+                out.writeInt(stringIndexOffset);
+                out.writeInt(stringDataOffset);
+                out.writeInt(0);
+                for (int i = 0; i < entryCount * 4; i++) {
+                    out.writeInt(entries[i]);
+                }
+                out.writeInt(0);
+                for (int i = 0; i < stringCount; i++) {
+                    out.writeInt(stringEnds[i]);
+                }
+                out.write(strings, 0, stringsSize);
+            }
+        }
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public boolean isEnabled(int i) {
+        return (buffer.getInt(entryOffset(i) + 12) & FLAG_ENABLED) != 0;
+    }
+
+    public String getId(int i) {
+        return string(buffer.getInt(entryOffset(i)));
+    }
+
+    public String getTitle(int i) {
+        return string(buffer.getInt(entryOffset(i) + 4));
+    }
+
+    public String getUrlPattern(int i) {
+        return string(buffer.getInt(entryOffset(i) + 8));
+    }
+
+    public BlockedSite get(int i) {
+        BlockedSite s = new BlockedSite();
+        s.setId(getId(i));
+        s.setTitle(getTitle(i));
+        s.setUrlPattern(getUrlPattern(i));
+        s.setEnabled(isEnabled(i));
+        return s;
+    }
+
+    public void forEachEnabledUrl(Consumer<String> action) {
+        for (int i = 0; i < count; i++) {
+            if (isEnabled(i)) {
+                action.accept(getUrlPattern(i));
+            }
+        }
+    }
+
+    public Iterator<BlockedSite> iterator() {
+        return new Iterator<>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < count;
+            }
+
+            @Override
+            public BlockedSite next() {
+                return get(next++);
+            }
+        };
+    }
+
+    private int entryOffset(int i) {
+        if (i < 0 || i >= count) {
+            throw new IndexOutOfBoundsException(i);
+        }
+        return entriesOffset + i * ENTRY_SIZE;
+    }
+
+    private String string(int index) {
+        int start = buffer.getInt(stringIndexOffset + index * 4);
+        int end = buffer.getInt(stringIndexOffset + (index + 1) * 4);
+        byte[] bytes = new byte[end - start];
+        buffer.get(stringDataOffset + start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -1,24 +1,128 @@
 import javax.crypto.SecretKeyFactory;
 import javax.crypto.spec.PBEKeySpec;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
-import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.security.GeneralSecurityException;
 import java.security.SecureRandom;
 import java.util.Arrays;
+import java.util.EnumMap;
 import java.util.HexFormat;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.Supplier;
 
+// Verificarea PBKDF2 durează zeci de milisecunde, deci interfața o rulează prin verifyPasswordAsync
+// pe un fir separat. După o verificare reușită, startSession deschide o sesiune în memorie pentru
+// acțiunea respectivă (vezi ProtectedAction); expirarea folosește System.nanoTime, deci nu poate
+// fi prelungită schimbând ceasul sistemului.
+//
+// Format parental_pwd.txt: "v2$algoritm$iterații$salt$hash" (hex). Formatul vechi "salt:hash"
+// corespunde lui PBKDF2WithHmacSHA256 cu 120.000 de iterații. Numărul de iterații este
+// calibrat la pornire pentru ~TARGET_MILLIS pe mașina curentă, dar nu scade sub MIN_ITERATIONS;
+// o parolă salvată cu alt algoritm sau cu un cost mult mai mic este recalculată la următoarea
+// verificare reușită. Costul nu este niciodată coborât: o calibrare făcută sub sarcină (la
+// pornire) ar subestima mașina și ar slăbi definitiv o parolă salvată corect.
+// Înregistrarea citită este păstrată în memorie până când fișierul se schimbă pe disc.
 public class ParentalPasswordGuard {
     private static final String KDF = "PBKDF2WithHmacSHA256";
-    private static final int ITERATIONS = 120_000;
+    private static final String FORMAT_V2 = "v2";
+    private static final int LEGACY_ITERATIONS = 120_000;
+    private static final long TARGET_MILLIS = 150;
+    private static final int MIN_ITERATIONS = LEGACY_ITERATIONS;
+    // Fișierele v2 mai vechi puteau avea până la 50.000 de iterații; se acceptă și sunt ridicate
+    // la MIN_ITERATIONS la următoarea verificare reușită.
+    private static final int MIN_ACCEPTED_ITERATIONS = 50_000;
+    private static final int MAX_ITERATIONS = 5_000_000;
+    private static final int CALIBRATION_ITERATIONS = 20_000;
     private static final int KEY_LEN = 256;
     private static final int SALT_LEN = 16;
 
     private final Path passwordFile;
     private final SecureRandom random = new SecureRandom();
+    // Sesiunile au propriul monitor: firul JavaFX le verifică fără să aștepte după store(),
+    // care ține obiectul blocat pe durata unui calcul PBKDF2.
+    private final Map<ProtectedAction, Long> sessionExpiry = new EnumMap<>(ProtectedAction.class);
+    private final ExecutorService verifier = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "PasswordVerifier");
+        t.setDaemon(true);
+        return t;
+    });
+    private volatile int calibratedIterations;
+    private volatile CachedCredential cached;
+
+    private static final class Credential {
+        private final String algorithm;
+        private final int iterations;
+        private final byte[] salt;
+        private final byte[] hash;
+        private final boolean legacyFormat;
+
+        private Credential(String algorithm, int iterations, byte[] salt, byte[] hash, boolean legacyFormat) {
+            this.algorithm = algorithm;
+            this.iterations = iterations;
+            this.salt = salt;
+            this.hash = hash;
+            this.legacyFormat = legacyFormat;
+        }
+
+        // null pentru conținut nerecunoscut, algoritm necunoscut sau un cost în afara limitelor
+        // (0 ar arunca din PBEKeySpec, o valoare uriașă ar bloca firul de verificare)
+        private static Credential parse(String stored) {
+            try {
+                if (stored.startsWith(FORMAT_V2 + "$")) {
+                    String[] parts = stored.split("\\$");
+                    if (parts.length != 5 || !KDF.equals(parts[1])) return null;
+                    int iterations = Integer.parseInt(parts[2]);
+                    if (iterations < MIN_ACCEPTED_ITERATIONS || iterations > MAX_ITERATIONS) return null;
+                    byte[] salt = HexFormat.of().parseHex(parts[3]);
+                    byte[] hash = HexFormat.of().parseHex(parts[4]);
+                    if (salt.length == 0 || hash.length != KEY_LEN / 8) return null;
+                    return new Credential(parts[1], iterations, salt, hash, false);
+                }
+                String[] parts = stored.split(":");
+                if (parts.length != 2) return null;
+                return new Credential(KDF, LEGACY_ITERATIONS,
+                        HexFormat.of().parseHex(parts[0]), HexFormat.of().parseHex(parts[1]), true);
+            } catch (IllegalArgumentException ex) {
+                return null;
+            }
+        }
+
+        private String format() {
+            return FORMAT_V2 + "$" + algorithm + "$" + iterations + "$"
+                    + HexFormat.of().formatHex(salt) + "$" + HexFormat.of().formatHex(hash);
+        }
+    }
+
+    // Înregistrarea împreună cu atributele fișierului din care a fost citită.
+    private static final class CachedCredential {
+        private final Credential credential;
+        private final Object fileKey;
+        private final long modifiedMillis;
+        private final long size;
+
+        private CachedCredential(Credential credential, BasicFileAttributes attributes) {
+            this.credential = credential;
+            this.fileKey = attributes.fileKey();
+            this.modifiedMillis = attributes.lastModifiedTime().toMillis();
+            this.size = attributes.size();
+        }
+
+        private boolean matches(BasicFileAttributes attributes) {
+            return Objects.equals(fileKey, attributes.fileKey())
+                    && modifiedMillis == attributes.lastModifiedTime().toMillis()
+                    && size == attributes.size();
+        }
+    }
 
     public ParentalPasswordGuard() {
         String appDir = System.getenv("APPDATA");
@@ -31,6 +135,8 @@ public class ParentalPasswordGuard {
         } catch (IOException ignored) {
         }
         passwordFile = dir.resolve("parental_pwd.txt");
+        // calibrarea rulează o dată, în fundal, înainte de prima verificare
+        verifier.execute(this::calibratedIterations);
     }
 
     public boolean isPasswordSet() {
@@ -39,34 +145,137 @@ public class ParentalPasswordGuard {
 
     public void setPassword(char[] password) throws IOException {
         Objects.requireNonNull(password, "password");
-        byte[] salt = new byte[SALT_LEN];
-        random.nextBytes(salt);
-        byte[] hash = hash(password, salt);
-        String combined = HexFormat.of().formatHex(salt) + ":" + HexFormat.of().formatHex(hash);
-        Files.writeString(passwordFile, combined, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
-        Arrays.fill(password, '\0');
-        Arrays.fill(hash, (byte) 0);
+        try {
+            store(password);
+        } finally {
+            Arrays.fill(password, '\0');
+        }
+        endSessions();
+    }
+
+    // Ca setPassword, pe firul PasswordVerifier (calculul și, la primul apel, calibrarea).
+    public CompletableFuture<Void> setPasswordAsync(char[] password) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                setPassword(password);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, verifier);
     }
 
     public boolean verifyPassword(char[] attempt) throws IOException {
-        if (!isPasswordSet()) {
-            return false;
-        }
         Objects.requireNonNull(attempt, "attempt");
         try {
-            String stored = Files.readString(passwordFile).trim();
-            if (stored.isEmpty()) return false;
-            String[] parts = stored.split(":");
-            if (parts.length != 2) return false;
-            byte[] salt = HexFormat.of().parseHex(parts[0]);
-            byte[] expected = HexFormat.of().parseHex(parts[1]);
-            byte[] actual = hash(attempt, salt);
-            return slowEquals(expected, actual);
+            Credential credential = loadCredential();
+            if (credential == null) return false;
+            byte[] actual = hash(attempt, credential.salt, credential.algorithm, credential.iterations);
+            boolean valid = slowEquals(credential.hash, actual);
+            Arrays.fill(actual, (byte) 0);
+            if (valid && needsRehash(credential)) {
+                try {
+                    store(attempt);
+                } catch (IOException ignored) {
+                    // înregistrarea veche rămâne valabilă; se reîncearcă la următoarea verificare
+                }
+            }
+            return valid;
         } finally {
             Arrays.fill(attempt, '\0');
         }
     }
 
+    // Iterațiile pentru ~TARGET_MILLIS pe mașina curentă, măsurate o singură dată.
+    int calibratedIterations() {
+        int iterations = calibratedIterations;
+        if (iterations > 0) return iterations;
+        byte[] salt = new byte[SALT_LEN];
+        char[] probe = "calibrare".toCharArray();
+        long best = Long.MAX_VALUE;
+        // prima rulare include încălzirea JIT; se păstrează cea mai rapidă
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            hash(probe, salt, KDF, CALIBRATION_ITERATIONS);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        long scaled = CALIBRATION_ITERATIONS * TARGET_MILLIS * 1_000_000L / Math.max(1, best);
+        iterations = (int) Math.max(MIN_ITERATIONS, Math.min(MAX_ITERATIONS, scaled / 1000 * 1000));
+        calibratedIterations = iterations;
+        return iterations;
+    }
+
+    private boolean needsRehash(Credential credential) {
+        if (credential.legacyFormat || !KDF.equals(credential.algorithm)) return true;
+        int target = calibratedIterations();
+        // doar în sus, cu toleranță de 25%, ca mici variații de măsurare să nu rescrie fișierul
+        return credential.iterations < target * 3L / 4;
+    }
+
+    private synchronized void store(char[] password) throws IOException {
+        byte[] salt = new byte[SALT_LEN];
+        random.nextBytes(salt);
+        int iterations = calibratedIterations();
+        Credential credential = new Credential(KDF, iterations, salt, hash(password, salt, KDF, iterations), false);
+        Path tmp = passwordFile.resolveSibling("parental_pwd.txt.tmp");
+        Files.writeString(tmp, credential.format());
+        try {
+            Files.move(tmp, passwordFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(tmp, passwordFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+        cached = new CachedCredential(credential, Files.readAttributes(passwordFile, BasicFileAttributes.class));
+    }
+
+    // Recitește fișierul doar dacă atributele lui diferă de cele ale înregistrării din memorie.
+    private Credential loadCredential() throws IOException {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(passwordFile, BasicFileAttributes.class);
+        } catch (NoSuchFileException ex) {
+            cached = null;
+            return null;
+        }
+        CachedCredential current = cached;
+        if (current != null && current.matches(attributes)) {
+            return current.credential;
+        }
+        Credential credential = Credential.parse(Files.readString(passwordFile).trim());
+        cached = credential == null ? null : new CachedCredential(credential, attributes);
+        return credential;
+    }
+
+    // Tabloul attempt este șters după verificare, ca la verifyPassword.
+    public CompletableFuture<Boolean> verifyPasswordAsync(char[] attempt) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return verifyPassword(attempt);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, verifier);
+    }
+
+    public boolean hasSession(ProtectedAction action) {
+        synchronized (sessionExpiry) {
+            Long expiry = sessionExpiry.get(action);
+            return expiry != null && expiry - System.nanoTime() > 0;
+        }
+    }
+
+    public void startSession(ProtectedAction action) {
+        long length = action.getSessionLength().toNanos();
+        if (length <= 0) return;
+        synchronized (sessionExpiry) {
+            sessionExpiry.put(action, System.nanoTime() + length);
+        }
+    }
+
+    public void endSessions() {
+        synchronized (sessionExpiry) {
+            sessionExpiry.clear();
+        }
+    }
+
     public void requirePassword(ProtectedAction action, Supplier<char[]> passwordSupplier) {
         if (!isPasswordSet()) {
             throw new IllegalStateException("Nu există parolă setată pentru " + action);
@@ -84,16 +293,16 @@ public class ParentalPasswordGuard {
         }
     }
 
-    private byte[] hash(char[] password, byte[] salt) {
+    private static byte[] hash(char[] password, byte[] salt, String algorithm, int iterations) {
         try {
-            PBEKeySpec spec = new PBEKeySpec(password, salt, ITERATIONS, KEY_LEN);
-            return SecretKeyFactory.getInstance(KDF).generateSecret(spec).getEncoded();
+            PBEKeySpec spec = new PBEKeySpec(password, salt, iterations, KEY_LEN);
+            return SecretKeyFactory.getInstance(algorithm).generateSecret(spec).getEncoded();
         } catch (GeneralSecurityException e) {
             throw new IllegalStateException("Nu s-a putut calcula hash-ul parolei", e);
         }
     }
 
-    private boolean slowEquals(byte[] a, byte[] b) {
+    private static boolean slowEquals(byte[] a, byte[] b) {
         if (a.length != b.length) return false;
         int diff = 0;
         for (int i = 0; i < a.length; i++) {
@@ -0,0 +1,64 @@
+import java.time.Instant;
+import java.util.List;
+
+// Informațiile rezolvate o singură dată pentru un proces (ProcessHandle.Info este costisitor).
+public final class ProcessDetails {
+    private final String command;
+    private final List<String> arguments;
+    private final String commandLine;
+    private final boolean commandLineKnown;
+    private final String user;
+    private final Instant startInstant;
+
+    private ProcessDetails(String command, List<String> arguments, String commandLine, boolean commandLineKnown,
+                           String user, Instant startInstant) {
+        this.command = command;
+        this.arguments = arguments;
+        this.commandLine = commandLine;
+        this.commandLineKnown = commandLineKnown;
+        this.user = user;
+        this.startInstant = startInstant;
+    }
+
+    public static ProcessDetails resolve(ProcessHandle ph) {
+        ProcessHandle.Info info = ph.info();
+        String command = info.command().orElse("");
+        List<String> arguments = info.arguments().map(List::of).orElse(List.of());
+        // pe Windows JDK-ul nu completează argumentele altor procese; linia reală vine din
+        // CommandLineResolver, iar până atunci rămâne doar executabilul
+        boolean known = info.commandLine().isPresent() || !arguments.isEmpty();
+        String commandLine = info.commandLine().orElseGet(() ->
+                arguments.isEmpty() ? command : command + " " + String.join(" ", arguments));
+        return new ProcessDetails(command, arguments, commandLine, known,
+                info.user().orElse(""), info.startInstant().orElse(null));
+    }
+
+    public ProcessDetails withCommandLine(String resolvedCommandLine) {
+        return new ProcessDetails(command, arguments, resolvedCommandLine, true, user, startInstant);
+    }
+
+    public String getCommand() {
+        return command;
+    }
+
+    public List<String> getArguments() {
+        return arguments;
+    }
+
+    public String getCommandLine() {
+        return commandLine;
+    }
+
+    // false dacă getCommandLine() este doar executabilul, fără argumentele reale.
+    public boolean isCommandLineKnown() {
+        return commandLineKnown;
+    }
+
+    public String getUser() {
+        return user;
+    }
+
+    public Instant getStartInstant() {
+        return startInstant;
+    }
+}
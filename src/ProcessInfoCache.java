@@ -0,0 +1,32 @@
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+// Cache limitat de ProcessDetails, cheiat pe ProcessHandle (pid + momentul pornirii).
+// Intrările proceselor terminate sunt eliminate la fiecare sincronizare a tabelei,
+// iar peste capacitate se elimină cele mai vechi folosite.
+public class ProcessInfoCache {
+    private final Map<ProcessHandle, ProcessDetails> entries;
+
+    public ProcessInfoCache(int capacity) {
+        this.entries = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<ProcessHandle, ProcessDetails> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    public synchronized ProcessDetails get(ProcessHandle ph) {
+        ProcessDetails details = entries.get(ph);
+        if (details == null) {
+            details = ProcessDetails.resolve(ph);
+            entries.put(ph, details);
+        }
+        return details;
+    }
+
+    public synchronized void retainAlive(Set<ProcessHandle> alive) {
+        entries.keySet().retainAll(alive);
+    }
+}
@@ -1,44 +1,96 @@
-import java.io.IOException;
-import java.time.Instant;
-import java.time.LocalTime;
+import java.time.LocalDateTime;
 import java.time.Duration;
-import java.util.Map;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Set;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
+// Nu scanează la interval fix: după fiecare trecere se programează exact la următorul
+// termen (capăt de interval permis sau epuizarea limitei zilnice) al aplicațiilor care
+// rulează, iar în lipsa lor la intervalul lent de descoperire.
 public class ProcessMonitor {
-    private final List<BlockedApp> blockedList;
+    private static final long MIN_DELAY_MILLIS = 50;
+
     private final Consumer<String> logger;
-    private ScheduledExecutorService executor;
+    private final UsageCounters counters;
+    private final ExecutableHashCache hashes;
+    // Un singur fir pentru scanări și blocări manuale: trackerul de procese nu e partajat între fire.
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "ProcessMonitor");
+        t.setDaemon(true);
+        return t;
+    });
     private volatile boolean running = false;
-    private final Map<Long, Instant> startTimes = new ConcurrentHashMap<>();
+    private final UsageLedger usage;
+    private volatile RuleSnapshot rules = RuleSnapshot.empty();
+    private final ProcessInfoCache infoCache = new ProcessInfoCache(8192);
+    private final CommandLineResolver commandLines = new CommandLineResolver();
+    private final ProcessSnapshotTracker processes = new ProcessSnapshotTracker(infoCache, commandLines);
+    private final ProcessTerminator terminator;
+    private volatile Duration discoveryInterval = Duration.ofSeconds(5);
+    private ScheduledFuture<?> nextCycle;
+    private long generation;
 
-    public ProcessMonitor(List<BlockedApp> blockedList, Consumer<String> logger) {
-        this.blockedList = blockedList;
+    public ProcessMonitor(UsageCounters counters, UsageHistory history, ExecutableHashCache hashes, Consumer<String> logger) {
+        this.counters = counters;
+        this.hashes = hashes;
+        hashes.setOnHashed(this::wakeUp);
         this.logger = logger;
+        commandLines.setLogger(this::log);
+        commandLines.setOnResolved(this::wakeUp);
+        this.usage = new UsageLedger(counters, history);
+        this.terminator = new ProcessTerminator(Duration.ofMillis(300), this::log);
     }
 
     public synchronized void start() {
         if (running) return;
         running = true;
-        executor = Executors.newSingleThreadScheduledExecutor(r -> {
-            Thread t = new Thread(r, "ProcessMonitor");
-            t.setDaemon(true);
-            return t;
-        });
-        executor.scheduleWithFixedDelay(this::poll, 0, 2, TimeUnit.SECONDS);
+        scheduleCycle(0);
+    }
+
+    // Forțează o scanare imediată, de ex. după modificarea regulilor.
+    public synchronized void wakeUp() {
+        if (!running) return;
+        scheduleCycle(0);
+    }
+
+    private void scheduleCycle(long delayMillis) {
+        if (nextCycle != null) {
+            nextCycle.cancel(false);
+        }
+        long gen = ++generation;
+        nextCycle = executor.schedule(() -> cycle(gen), delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void cycle(long gen) {
+        synchronized (this) {
+            if (gen != generation) return;
+        }
+        long delay = discoveryInterval.toMillis();
+        try {
+            delay = poll();
+        } finally {
+            synchronized (this) {
+                if (running && gen == generation) {
+                    scheduleCycle(Math.max(MIN_DELAY_MILLIS, delay));
+                }
+            }
+        }
     }
 
     public synchronized void stop() {
         if (!running) return;
         running = false;
-        if (executor != null) {
-            executor.shutdownNow();
-            executor = null;
+        generation++;
+        if (nextCycle != null) {
+            nextCycle.cancel(false);
+            nextCycle = null;
         }
     }
 
@@ -46,105 +98,142 @@ public class ProcessMonitor {
         return running;
     }
 
+    public Duration getDiscoveryInterval() {
+        return discoveryInterval;
+    }
+
+    public void setDiscoveryInterval(Duration discoveryInterval) {
+        this.discoveryInterval = discoveryInterval;
+        wakeUp();
+    }
+
+    public Duration getTerminationGrace() {
+        return terminator.getGrace();
+    }
+
+    public void setTerminationGrace(Duration grace) {
+        terminator.setGrace(grace);
+    }
+
+    // Apelat de interfață după fiecare modificare a listei; monitorul nu citește lista direct.
+    public void publishRules(List<BlockedApp> apps) {
+        RuleSnapshot snapshot = RuleSnapshot.of(apps);
+        rules = snapshot;
+        counters.retain(snapshot.getRules().stream().map(BlockedApp::getId).collect(Collectors.toSet()));
+        wakeUp();
+    }
+
     public void blockNow(BlockedApp target) {
-        enforceImmediate(target);
+        if (target != null) {
+            blockNow(List.of(target));
+        }
     }
 
-    private void enforceImmediate(BlockedApp target) {
-        if (target == null) {
+    // Copiază regulile pe firul apelantului și face scanarea pe firul monitorului, fără a bloca interfața.
+    public void blockNow(List<BlockedApp> targets) {
+        List<BlockedApp> copies = targets.stream().map(BlockedApp::new).collect(Collectors.toList());
+        if (copies.isEmpty()) {
             return;
         }
+        executor.execute(() -> enforceImmediate(copies));
+    }
+
+    private void enforceImmediate(List<BlockedApp> targets) {
         try {
-            for (ProcessHandle ph : ProcessHandle.allProcesses().toArray(ProcessHandle[]::new)) {
-                if (!ph.isAlive()) {
-                    continue;
-                }
-                String cmd = ph.info().command().orElse("");
-                if (cmd.isBlank()) {
-                    continue;
+            ExecutableRuleIndex index = ExecutableRuleIndex.of(targets);
+            processes.refresh();
+            boolean pending = false;
+            for (ProcessSnapshotTracker.TrackedProcess tp : processes.snapshot()) {
+                List<BlockedApp> matches = index.lookup(tp.detailsFor(index, commandLines));
+                pending |= tp.isCommandLinePending(index);
+                if (matches.isEmpty() && index.hasContentRules()) {
+                    matches = index.withContentMatches(matches, hashes.lookup(tp.getCommand()));
                 }
-                if (target.matchesExecutable(cmd)) {
-                    tryTerminate(ph.pid(), cmd, target);
+                if (!matches.isEmpty() && tp.getHandle().isAlive()) {
+                    tryTerminate(tp.getHandle(), tp.getCommand(), matches.get(0));
                 }
             }
+            if (pending) {
+                // interogarea liniilor de comandă rezolvă (sau renunță la) toate procesele cerute,
+                // deci reluarea se oprește după cel mult o interogare
+                executor.schedule(() -> enforceImmediate(targets), 1, TimeUnit.SECONDS);
+            }
         } catch (Throwable t) {
             log("Blocare manuală eșuată: " + t.getMessage());
         }
     }
 
-    private void poll() {
+    // Returnează peste câte milisecunde trebuie făcută următoarea scanare.
+    private long poll() {
+        long discoveryMillis = discoveryInterval.toMillis();
+        long nextDelay = discoveryMillis;
         try {
-            Instant nowInstant = Instant.now();
-            LocalTime nowTime = LocalTime.now();
-            for (ProcessHandle ph : ProcessHandle.allProcesses().toArray(ProcessHandle[]::new)) {
-                if (!ph.isAlive()) continue;
-                String cmd = ph.info().command().orElse("");
-                if (cmd.isBlank()) continue;
-                synchronized (blockedList) {
-                    for (BlockedApp b : blockedList) {
-                        if (!b.isEnabled()) continue;
-                        if (!b.matchesExecutable(cmd)) continue;
-                        b.resetDailyUsageIfNeeded();
-                        if (!b.isScheduleAllowed(nowTime)) {
-                            tryTerminate(ph.pid(), cmd, b);
-                            continue;
-                        }
-                        if (b.hasDailyLimit()) {
-                            trackUsage(ph.pid(), nowInstant, b);
-                            if (b.hasReachedDailyLimit()) {
-                                tryTerminate(ph.pid(), cmd, b);
-                            }
-                        } else {
-                            tryTerminate(ph.pid(), cmd, b);
-                        }
+            LocalDateTime now = LocalDateTime.now();
+            ExecutableRuleIndex index = rules.getIndex();
+            processes.refresh();
+            List<ProcessSnapshotTracker.TrackedProcess> live = new ArrayList<>();
+            for (ProcessSnapshotTracker.TrackedProcess tp : processes.snapshot()) {
+                if (!tp.matchAgainst(index, hashes, commandLines).isEmpty() && tp.getHandle().isAlive()) {
+                    live.add(tp);
+                }
+            }
+            Set<BlockedApp> metered = new HashSet<>();
+            for (ProcessSnapshotTracker.TrackedProcess tp : live) {
+                for (BlockedApp b : tp.getMatches()) {
+                    if (b.isEnabled() && b.hasDailyLimit() && b.isScheduleAllowed(now)) {
+                        metered.add(b);
                     }
                 }
             }
+            usage.tick(metered, now, System.nanoTime(), TimeUnit.MILLISECONDS.toNanos(2 * discoveryMillis));
+            for (BlockedApp b : metered) {
+                if (!hasReachedDailyLimit(b)) {
+                    nextDelay = Math.min(nextDelay, millisUntilDeadline(b, now));
+                }
+            }
+            for (ProcessSnapshotTracker.TrackedProcess tp : live) {
+                BlockedApp offending = findOffendingRule(tp.getMatches(), now);
+                if (offending != null) {
+                    tryTerminate(tp.getHandle(), tp.getCommand(), offending);
+                }
+            }
         } catch (Throwable t) {
             log("Monitor error: " + t.getMessage());
         }
+        return nextDelay;
     }
 
-    private void trackUsage(long pid, Instant now, BlockedApp app) {
-        Instant previous = startTimes.put(pid, now);
-        if (previous != null) {
-            long delta = Duration.between(previous, now).toMillis();
-            if (delta > 0) {
-                app.addUsageMillis(delta);
+    private BlockedApp findOffendingRule(List<BlockedApp> matches, LocalDateTime now) {
+        for (BlockedApp b : matches) {
+            if (!b.isEnabled()) continue;
+            if (!b.isScheduleAllowed(now) || !b.hasDailyLimit() || hasReachedDailyLimit(b)) {
+                return b;
             }
         }
+        return null;
     }
 
-    private void tryTerminate(long pid, String cmd, BlockedApp app) {
-        String exeName = app.getExeName() != null && !app.getExeName().isBlank() ? app.getExeName() : cmd;
-        log("Aplicatie blocata: " + exeName + " (pid=" + pid + ") cmd=" + cmd);
-        // First try polite termination
-        try {
-            ProcessHandle.of(pid).ifPresent(ph -> ph.destroy());
-            // wait briefly and check
-            try { Thread.sleep(300); } catch (InterruptedException ignored) {}
-            if (ProcessHandle.of(pid).map(ProcessHandle::isAlive).orElse(false)) {
-                boolean killed = killByTaskkill(exeName);
-                if (killed) log("Proces terminat fortat (taskkill): " + exeName + " pid=" + pid);
-                else log("Nu pot termina " + exeName + ", pid=" + pid + ". Ruleaza aplicatia ca Administrator.");
-            } else {
-                log("Proces terminat: " + exeName + " pid=" + pid);
-            }
-        } catch (Throwable t) {
-            log("Eroare la terminare " + exeName + ": " + t.getMessage());
+    private boolean hasReachedDailyLimit(BlockedApp app) {
+        return counters.getMillisToday(app.getId()) >= app.getDailyLimitMinutes() * 60_000L;
+    }
+
+    // Cel mai apropiat dintre: următorul capăt de interval și momentul estimat al epuizării limitei.
+    private long millisUntilDeadline(BlockedApp app, LocalDateTime now) {
+        long remaining = app.getDailyLimitMinutes() * 60_000L - counters.getMillisToday(app.getId());
+        LocalDateTime boundary = app.nextScheduleBoundary(now);
+        if (boundary != null) {
+            remaining = Math.min(remaining, Duration.between(now, boundary).toMillis());
         }
-        startTimes.remove(pid);
+        return Math.max(0, remaining);
     }
 
-    private boolean killByTaskkill(String exeName) {
-        try {
-            ProcessBuilder pb = new ProcessBuilder("taskkill", "/F", "/IM", exeName);
-            Process p = pb.start();
-            int rc = p.waitFor();
-            return rc == 0;
-        } catch (IOException | InterruptedException e) {
-            return false;
+    private void tryTerminate(ProcessHandle ph, String cmd, BlockedApp app) {
+        if (terminator.isPending(ph)) {
+            return;
         }
+        String exeName = app.getExeName() != null && !app.getExeName().isBlank() ? app.getExeName() : cmd;
+        log("Aplicatie blocata: " + exeName + " (pid=" + ph.pid() + ") cmd=" + cmd);
+        terminator.terminate(ph, exeName);
     }
 
     private void log(String message) {
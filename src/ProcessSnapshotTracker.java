@@ -0,0 +1,114 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Păstrează tabela de procese între două scanări. ProcessHandle compară pid-ul
+// împreună cu momentul pornirii, deci un pid refolosit apare ca proces nou.
+// ProcessHandle.Info se cere doar pentru procesele văzute prima dată, prin ProcessInfoCache;
+// linia de comandă (pe Windows) doar când există reguli care o folosesc, prin CommandLineResolver.
+public class ProcessSnapshotTracker {
+    private final Map<ProcessHandle, TrackedProcess> tracked = new HashMap<>();
+    private final ProcessInfoCache infoCache;
+    private final CommandLineResolver commandLines;
+
+    public ProcessSnapshotTracker(ProcessInfoCache infoCache, CommandLineResolver commandLines) {
+        this.infoCache = infoCache;
+        this.commandLines = commandLines;
+    }
+
+    public static final class TrackedProcess {
+        private final ProcessHandle handle;
+        private ProcessDetails details;
+        private List<BlockedApp> matches = List.of();
+        private ExecutableRuleIndex matchedWith;
+        private boolean contentHashPending;
+        private boolean commandLinePending;
+
+        private TrackedProcess(ProcessHandle handle, ProcessDetails details) {
+            this.handle = handle;
+            this.details = details;
+        }
+
+        public ProcessHandle getHandle() {
+            return handle;
+        }
+
+        public long getPid() {
+            return handle.pid();
+        }
+
+        public ProcessDetails getDetails() {
+            return details;
+        }
+
+        public String getCommand() {
+            return details.getCommand();
+        }
+
+        public List<BlockedApp> getMatches() {
+            return matches;
+        }
+
+        // Detaliile cu linia de comandă reală, dacă indexul are reguli pe linia de comandă;
+        // până la rezolvare se folosesc detaliile incomplete. Nu atinge starea folosită de
+        // matchAgainst, deci poate fi apelat și cu alt index (blocarea manuală).
+        public ProcessDetails detailsFor(ExecutableRuleIndex index, CommandLineResolver commandLines) {
+            if (index.hasCommandLineRules() && !details.isCommandLineKnown()) {
+                String commandLine = commandLines.lookup(handle, details.getCommandLine());
+                if (commandLine != null) {
+                    details = details.withCommandLine(commandLine);
+                }
+            }
+            return details;
+        }
+
+        // Adevărat dacă indexul are nevoie de linia de comandă și ea încă nu a fost rezolvată.
+        public boolean isCommandLinePending(ExecutableRuleIndex index) {
+            return index.hasCommandLineRules() && !details.isCommandLineKnown();
+        }
+
+        // Reevaluează regulile doar dacă indexul s-a schimbat de la ultima potrivire
+        // sau dacă amprenta binarului ori linia de comandă erau încă în curs de rezolvare.
+        public List<BlockedApp> matchAgainst(ExecutableRuleIndex index, ExecutableHashCache hashes,
+                                             CommandLineResolver commandLines) {
+            if (matchedWith != index || contentHashPending || commandLinePending) {
+                List<BlockedApp> found = index.lookup(detailsFor(index, commandLines));
+                commandLinePending = isCommandLinePending(index);
+                contentHashPending = false;
+                if (index.hasContentRules() && !details.getCommand().isBlank()) {
+                    String sha256 = hashes.lookup(details.getCommand());
+                    contentHashPending = sha256 == null;
+                    found = index.withContentMatches(found, sha256);
+                }
+                matches = found;
+                matchedWith = index;
+            }
+            return matches;
+        }
+    }
+
+    // Sincronizează tabela cu procesele vii; returnează procesele apărute de la ultima scanare.
+    public synchronized List<TrackedProcess> refresh() {
+        Set<ProcessHandle> alive = new HashSet<>();
+        List<TrackedProcess> added = new ArrayList<>();
+        ProcessHandle.allProcesses().forEach(ph -> {
+            alive.add(ph);
+            if (!tracked.containsKey(ph)) {
+                TrackedProcess tp = new TrackedProcess(ph, infoCache.get(ph));
+                tracked.put(ph, tp);
+                added.add(tp);
+            }
+        });
+        tracked.keySet().retainAll(alive);
+        infoCache.retainAlive(alive);
+        commandLines.retainAlive(alive);
+        return added;
+    }
+
+    public synchronized List<TrackedProcess> snapshot() {
+        return new ArrayList<>(tracked.values());
+    }
+}
@@ -0,0 +1,112 @@
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// Termină procesele în afara firului de monitorizare: destroy(), apoi după perioada
+// de grație destroyForcibly(), iar la final taskkill. Mai multe terminări rulează în paralel.
+public class ProcessTerminator {
+    private final Consumer<String> logger;
+    private final ExecutorService executor;
+    private final Set<ProcessHandle> pending = ConcurrentHashMap.newKeySet();
+    private volatile Duration grace;
+
+    public ProcessTerminator(Duration grace, Consumer<String> logger) {
+        this.grace = grace;
+        this.logger = logger;
+        this.executor = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "ProcessTerminator");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public Duration getGrace() {
+        return grace;
+    }
+
+    public void setGrace(Duration grace) {
+        this.grace = grace.isNegative() ? Duration.ZERO : grace;
+    }
+
+    public boolean isPending(ProcessHandle handle) {
+        return pending.contains(handle);
+    }
+
+    // Returnează imediat; viitorul se completează cu true dacă procesul s-a oprit.
+    public CompletableFuture<Boolean> terminate(ProcessHandle handle, String label) {
+        if (!pending.add(handle)) {
+            return CompletableFuture.completedFuture(false);
+        }
+        long graceMillis = grace.toMillis();
+        try {
+            handle.destroy();
+        } catch (RuntimeException ex) {
+            pending.remove(handle);
+            log("Eroare la terminare " + label + ": " + ex.getMessage());
+            return CompletableFuture.completedFuture(false);
+        }
+        return handle.onExit()
+                .thenApply(ph -> "polite")
+                .completeOnTimeout(null, graceMillis, TimeUnit.MILLISECONDS)
+                .thenCompose(how -> {
+                    if (how != null) {
+                        return CompletableFuture.completedFuture(how);
+                    }
+                    handle.destroyForcibly();
+                    return handle.onExit()
+                            .thenApply(ph -> "forced")
+                            .completeOnTimeout(null, graceMillis, TimeUnit.MILLISECONDS);
+                })
+                .thenApplyAsync(how -> {
+                    if (how == null && handle.isAlive()) {
+                        how = killByTaskkill(handle.pid()) ? "taskkill" : null;
+                    }
+                    return how;
+                }, executor)
+                .handle((how, err) -> {
+                    pending.remove(handle);
+                    if (err != null) {
+                        log("Eroare la terminare " + label + ": " + err.getMessage());
+                        return false;
+                    }
+                    if (how == null) {
+                        log("Nu pot termina " + label + ", pid=" + handle.pid() + ". Ruleaza aplicatia ca Administrator.");
+                        return false;
+                    }
+                    if ("polite".equals(how)) {
+                        log("Proces terminat: " + label + " pid=" + handle.pid());
+                    } else {
+                        log("Proces terminat fortat (" + how + "): " + label + " pid=" + handle.pid());
+                    }
+                    return true;
+                });
+    }
+
+    private boolean killByTaskkill(long pid) {
+        try {
+            ProcessBuilder pb = new ProcessBuilder("taskkill", "/F", "/PID", Long.toString(pid));
+            Process p = pb.start();
+            int rc = p.waitFor();
+            return rc == 0;
+        } catch (IOException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void log(String message) {
+        try {
+            logger.accept(message);
+        } catch (Throwable t) {
+            // ignore
+        }
+    }
+}
@@ -1,6 +1,19 @@
+import java.time.Duration;
+
+// Durata sesiunii de autorizare: după o parolă corectă, acțiunile de același tip nu o mai
+// cer până la expirare. Ieșirea din aplicație cere parola de fiecare dată.
 public enum ProtectedAction {
-    EXIT_APP,
-    DISABLE_RULES,
-    CHANGE_SETTINGS
-}
+    EXIT_APP(Duration.ZERO),
+    DISABLE_RULES(Duration.ofMinutes(2)),
+    CHANGE_SETTINGS(Duration.ofMinutes(5));
+
+    private final Duration sessionLength;
 
+    ProtectedAction(Duration sessionLength) {
+        this.sessionLength = sessionLength;
+    }
+
+    public Duration getSessionLength() {
+        return sessionLength;
+    }
+}
@@ -0,0 +1,38 @@
+import java.util.ArrayList;
+import java.util.List;
+
+// Copie imuabilă a regulilor, publicată de interfață după fiecare modificare și
+// citită de monitor printr-o referință volatilă, fără blocări.
+public final class RuleSnapshot {
+    private static final RuleSnapshot EMPTY = new RuleSnapshot(List.of(), ExecutableRuleIndex.empty());
+
+    private final List<BlockedApp> rules;
+    private final ExecutableRuleIndex index;
+
+    private RuleSnapshot(List<BlockedApp> rules, ExecutableRuleIndex index) {
+        this.rules = rules;
+        this.index = index;
+    }
+
+    public static RuleSnapshot empty() {
+        return EMPTY;
+    }
+
+    // Apelat pe firul care deține lista (JavaFX); regulile sunt copiate, nu partajate.
+    public static RuleSnapshot of(List<BlockedApp> apps) {
+        List<BlockedApp> copies = new ArrayList<>(apps.size());
+        for (BlockedApp app : apps) {
+            copies.add(new BlockedApp(app));
+        }
+        List<BlockedApp> rules = List.copyOf(copies);
+        return new RuleSnapshot(rules, ExecutableRuleIndex.of(rules));
+    }
+
+    public List<BlockedApp> getRules() {
+        return rules;
+    }
+
+    public ExecutableRuleIndex getIndex() {
+        return index;
+    }
+}
@@ -0,0 +1,72 @@
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+// Regulile de site compilate o dată pe modificare într-un CompactDomainSet comun pentru hosts,
+// DNS și proxy. O regulă cu cale ("youtube.com/shorts") blochează tot domeniul: în HTTPS proxy-ul
+// vede doar numele (CONNECT/SNI), iar hosts și DNS nu văd nici atât, așa că orice excepție pe
+// cale ar lăsa deschis tot site-ul, inclusiv calea blocată, sau ar fi ocolită ignorând proxy-ul.
+// Site-urile cu program sau limită intră în reguli doar cât sunt blocate la momentul compilării;
+// nextChange este următoarea graniță de program (sau miezul nopții, când se resetează limitele),
+// singurul moment în care regulile trebuie recompilate fără o modificare a listei.
+// Limitele zilnice se măsoară doar prin proxy; fără el (usageMeasured = false) un site cu limită
+// este blocat integral, ca înainte de limite, nu lăsat liber cu un consum care rămâne 0.
+public final class SiteRules {
+    private static final SiteRules EMPTY = new SiteRules(CompactDomainSet.empty(), null);
+
+    private final CompactDomainSet domains;
+    private final LocalDateTime nextChange;
+
+    private SiteRules(CompactDomainSet domains, LocalDateTime nextChange) {
+        this.domains = domains;
+        this.nextChange = nextChange;
+    }
+
+    public static SiteRules empty() {
+        return EMPTY;
+    }
+
+    public static SiteRules of(List<BlockedSite> sites, MappedSiteTable imported, LocalDateTime now,
+                               boolean usageMeasured, ToLongFunction<String> usageMillisToday) {
+        CompactDomainSet.Builder builder = new CompactDomainSet.Builder(sites.size() + imported.size());
+        LocalDateTime nextChange = null;
+        for (BlockedSite site : sites) {
+            if (!site.isEnabled()) continue;
+            nextChange = earliest(nextChange, site.nextScheduleBoundary(now));
+            if (site.hasDailyLimit()) {
+                nextChange = earliest(nextChange, now.toLocalDate().plusDays(1).atStartOfDay());
+            }
+            boolean unmeasuredLimit = site.hasDailyLimit() && !usageMeasured;
+            if (!unmeasuredLimit && !site.isBlockedAt(now, usageMillisToday.applyAsLong(site.getId()))) continue;
+            addHost(builder, BlockedSite.extractHost(site.getUrlPattern()));
+        }
+        imported.forEachEnabledUrl(url -> addHost(builder, BlockedSite.extractHost(url)));
+        return new SiteRules(builder.build(), nextChange);
+    }
+
+    public CompactDomainSet domains() {
+        return domains;
+    }
+
+    // null dacă regulile nu depind de oră.
+    public LocalDateTime getNextChange() {
+        return nextChange;
+    }
+
+    // Domeniul sau un părinte al lui este blocat (hosts, DNS, CONNECT, SNI, HTTP).
+    public boolean blocksHost(String host) {
+        return domains.containsSuffix(host);
+    }
+
+    // Ca în hosts, "www.exemplu.com" blochează și "exemplu.com" (deci și subdomeniile lui).
+    private static void addHost(CompactDomainSet.Builder builder, String host) {
+        if (host == null) return;
+        builder.add(host);
+        if (host.startsWith("www.")) builder.add(host.substring(4));
+    }
+
+    private static LocalDateTime earliest(LocalDateTime a, LocalDateTime b) {
+        if (a == null) return b;
+        return b == null || a.isBefore(b) ? a : b;
+    }
+}
@@ -0,0 +1,87 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+// Timpul zilnic petrecut pe site-urile cu limită, măsurat din traficul proxy-ului de filtrare:
+// fiecare minut în care o conexiune spre site a transferat date se numără o singură dată.
+// Fără proxy nu există trafic vizibil, deci limitele de site nu se consumă.
+// Contoarele stau în site_usage_counters.bin și supraviețuiesc repornirilor.
+public class SiteUsageTracker {
+    private static final long MINUTE_MILLIS = 60_000L;
+
+    private final UsageCounters counters;
+    private final Consumer<String> onLimitReached;
+    private volatile List<Limited> limited = List.of();
+
+    private static final class Limited {
+        private final String id;
+        private final String host;
+        private final long limitMillis;
+        private volatile long lastMinute = -1;
+
+        private Limited(String id, String host, long limitMillis) {
+            this.id = id;
+            this.host = host;
+            this.limitMillis = limitMillis;
+        }
+
+        private boolean matches(String name) {
+            return name.equals(host) || (name.endsWith(host) && name.charAt(name.length() - host.length() - 1) == '.');
+        }
+    }
+
+    // onLimitReached primește id-ul site-ului care tocmai și-a epuizat limita.
+    public SiteUsageTracker(UsageCounters counters, Consumer<String> onLimitReached) {
+        this.counters = counters;
+        this.onLimitReached = onLimitReached;
+    }
+
+    // Apelat pe firul JavaFX la fiecare modificare a listei de site-uri.
+    public void setSites(List<BlockedSite> sites) {
+        Map<String, Limited> previous = new HashMap<>();
+        for (Limited site : limited) previous.put(site.id, site);
+        List<Limited> next = new ArrayList<>();
+        Set<String> ids = new HashSet<>();
+        for (BlockedSite site : sites) {
+            ids.add(site.getId());
+            if (!site.isEnabled() || !site.hasDailyLimit()) continue;
+            String host = BlockedSite.extractHost(site.getUrlPattern());
+            if (host == null) continue;
+            if (host.startsWith("www.")) host = host.substring(4);
+            counters.seed(site.getId());
+            Limited entry = new Limited(site.getId(), host, site.getDailyLimitMinutes() * MINUTE_MILLIS);
+            Limited old = previous.get(site.getId());
+            if (old != null) entry.lastMinute = old.lastMinute; // minutul curent nu se numără de două ori
+            next.add(entry);
+        }
+        counters.retain(ids);
+        limited = List.copyOf(next);
+    }
+
+    public long getMillisToday(String siteId) {
+        return counters.getMillisToday(siteId);
+    }
+
+    // Apelat de proxy (pe firul lui) cel mult o dată pe minut pentru fiecare conexiune activă.
+    public void onActivity(String host) {
+        List<Limited> current = limited;
+        if (current.isEmpty() || host == null) return;
+        long minute = System.currentTimeMillis() / MINUTE_MILLIS;
+        for (Limited site : current) {
+            if (site.lastMinute == minute || !site.matches(host)) continue;
+            site.lastMinute = minute;
+            long total = counters.add(site.id, MINUTE_MILLIS);
+            if (total >= site.limitMillis && total - MINUTE_MILLIS < site.limitMillis) {
+                onLimitReached.accept(site.id);
+            }
+        }
+    }
+
+    public void flush() {
+        counters.flush();
+    }
+}
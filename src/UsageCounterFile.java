@@ -0,0 +1,161 @@
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+// Contoarele zilnice într-un fișier mic, mapat în memorie și actualizat pe loc la fiecare tick.
+// Scrierea ajunge doar în pagina mapată; sistemul de operare o duce pe disc, deci
+// o oprire bruscă a JVM-ului nu mai pierde utilizarea zilei.
+//
+// Antet (16 octeți): magic "PCUC", versiune, nr. sloturi, rezervat
+// Slot (64 octeți): epochDay (long), millis (long), lungime id (1 octet), id UTF-8 (max 47 octeți)
+// Un slot cu lungimea 0 este liber.
+public final class UsageCounterFile {
+    private static final int MAGIC = 0x50435543; // "PCUC"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int SLOT_SIZE = 64;
+    private static final int MAX_ID_BYTES = SLOT_SIZE - 17;
+    private static final int INITIAL_SLOTS = 256;
+
+    private final FileChannel channel;
+    private final Map<String, Integer> slots = new HashMap<>();
+    private MappedByteBuffer buffer;
+    private int slotCount;
+
+    private UsageCounterFile(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    public static UsageCounterFile open(Path file) throws IOException {
+        FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        UsageCounterFile f = new UsageCounterFile(ch);
+        try {
+            f.init();
+        } catch (IOException | RuntimeException ex) {
+            ch.close();
+            throw ex;
+        }
+        return f;
+    }
+
+    private void init() throws IOException {
+        long size = channel.size();
+        if (size >= HEADER_SIZE) {
+            MappedByteBuffer existing = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            int count = existing.getInt(8);
+            if (existing.getInt(0) == MAGIC && existing.getInt(4) == VERSION
+                    && count > 0 && HEADER_SIZE + (long) count * SLOT_SIZE <= size) {
+                buffer = existing;
+                slotCount = count;
+                for (int i = 0; i < slotCount; i++) {
+                    String id = readId(i);
+                    if (id != null) {
+                        slots.put(id, i);
+                    }
+                }
+                return;
+            }
+        }
+        // fișier nou sau deteriorat: se reinițializează
+        channel.truncate(0);
+        remap(INITIAL_SLOTS);
+    }
+
+    private void remap(int count) throws IOException {
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) count * SLOT_SIZE);
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, VERSION);
+        buffer.putInt(8, count);
+        slotCount = count;
+    }
+
+    // Zi și valoare memorate pentru aplicație, sau null dacă nu există slot.
+    public synchronized long[] read(String appId) {
+        Integer slot = slots.get(appId);
+        if (slot == null) {
+            return null;
+        }
+        int offset = slotOffset(slot);
+        return new long[]{buffer.getLong(offset), buffer.getLong(offset + 8)};
+    }
+
+    public synchronized void write(String appId, long epochDay, long millis) {
+        Integer slot = slots.get(appId);
+        if (slot == null) {
+            slot = allocate(appId);
+            if (slot < 0) {
+                return;
+            }
+        }
+        int offset = slotOffset(slot);
+        buffer.putLong(offset, epochDay);
+        buffer.putLong(offset + 8, millis);
+    }
+
+    // Eliberează sloturile aplicațiilor care nu mai există în listă.
+    public synchronized void retain(Collection<String> appIds) {
+        Set<String> keep = new HashSet<>(appIds);
+        slots.entrySet().removeIf(e -> {
+            if (keep.contains(e.getKey())) return false;
+            buffer.put(slotOffset(e.getValue()) + 16, (byte) 0);
+            return true;
+        });
+    }
+
+    // Cere sistemului să scrie paginile modificate (ex. la închiderea aplicației).
+    public synchronized void flush() {
+        buffer.force();
+    }
+
+    private int allocate(String appId) {
+        byte[] id = appId.getBytes(StandardCharsets.UTF_8);
+        if (id.length == 0 || id.length > MAX_ID_BYTES) {
+            return -1;
+        }
+        int free = -1;
+        for (int i = 0; i < slotCount; i++) {
+            if (buffer.get(slotOffset(i) + 16) == 0) {
+                free = i;
+                break;
+            }
+        }
+        if (free < 0) {
+            free = slotCount;
+            try {
+                remap(slotCount * 2);
+            } catch (IOException ex) {
+                return -1;
+            }
+        }
+        int offset = slotOffset(free);
+        buffer.putLong(offset, 0);
+        buffer.putLong(offset + 8, 0);
+        buffer.put(offset + 17, id);
+        buffer.put(offset + 16, (byte) id.length);
+        slots.put(appId, free);
+        return free;
+    }
+
+    private String readId(int slot) {
+        int offset = slotOffset(slot);
+        int length = buffer.get(offset + 16) & 0xFF;
+        if (length == 0 || length > MAX_ID_BYTES) {
+            return null;
+        }
+        byte[] id = new byte[length];
+        buffer.get(offset + 17, id);
+        return new String(id, StandardCharsets.UTF_8);
+    }
+
+    private static int slotOffset(int slot) {
+        return HEADER_SIZE + slot * SLOT_SIZE;
+    }
+}
@@ -0,0 +1,124 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Contoarele de utilizare zilnică, separate de regulile imuabile: monitorul le
+// incrementează, interfața le citește și le copiază în BlockedApp la salvare.
+// Fiecare modificare se scrie imediat în usage_counters.bin (vezi UsageCounterFile);
+// fișierul principal preia valorile doar la compactare.
+public class UsageCounters {
+    private final Map<String, DailyUsage> counters = new ConcurrentHashMap<>();
+    private final UsageCounterFile file;
+
+    private static final class DailyUsage {
+        private volatile long epochDay;
+        private final AtomicLong millis = new AtomicLong();
+
+        private DailyUsage(long epochDay, long millis) {
+            this.epochDay = epochDay;
+            this.millis.set(millis);
+        }
+
+        private synchronized void rollTo(long today) {
+            if (epochDay != today) {
+                epochDay = today;
+                millis.set(0);
+            }
+        }
+    }
+
+    public UsageCounters() {
+        this("usage_counters.bin");
+    }
+
+    // Un fișier separat pentru fiecare tip de contor (aplicații, site-uri), ca retain să nu le amestece.
+    public UsageCounters(String fileName) {
+        String appDir = System.getenv("APPDATA");
+        if (appDir == null || appDir.isBlank()) {
+            appDir = System.getProperty("user.home");
+        }
+        Path dir = Path.of(appDir, "ParentalControlApp");
+        UsageCounterFile opened;
+        try {
+            Files.createDirectories(dir);
+            opened = UsageCounterFile.open(dir.resolve(fileName));
+        } catch (IOException ex) {
+            // fără fișier, contoarele rămân doar în memorie până la următoarea salvare
+            opened = null;
+        }
+        file = opened;
+    }
+
+    // Valoarea din fișierul de contoare are prioritate dacă e mai nouă decât cea din listă.
+    public void seed(BlockedApp app) {
+        app.resetDailyUsageIfNeeded();
+        long day = LocalDate.parse(app.getUsageDateIso()).toEpochDay();
+        long millis = app.getUsageMillisToday();
+        long[] persisted = file == null ? null : file.read(app.getId());
+        if (persisted != null && (persisted[0] > day || (persisted[0] == day && persisted[1] > millis))) {
+            day = persisted[0];
+            millis = persisted[1];
+        }
+        counters.put(app.getId(), new DailyUsage(day, millis));
+        persist(app.getId(), day, millis);
+    }
+
+    // Pentru contoarele fără câmpuri în listă (site-uri): doar valoarea din fișier.
+    public void seed(String id) {
+        long[] persisted = file == null ? null : file.read(id);
+        if (persisted != null) {
+            counters.putIfAbsent(id, new DailyUsage(persisted[0], persisted[1]));
+        }
+    }
+
+    public long add(String appId, long millis) {
+        long today = LocalDate.now().toEpochDay();
+        DailyUsage usage = counters.computeIfAbsent(appId, id -> new DailyUsage(today, 0));
+        usage.rollTo(today);
+        long total = usage.millis.addAndGet(Math.max(0, millis));
+        persist(appId, today, total);
+        return total;
+    }
+
+    public boolean contains(String appId) {
+        return counters.containsKey(appId);
+    }
+
+    public long getMillisToday(String appId) {
+        DailyUsage usage = counters.get(appId);
+        if (usage == null || usage.epochDay != LocalDate.now().toEpochDay()) {
+            return 0;
+        }
+        return usage.millis.get();
+    }
+
+    // Copiază valoarea curentă în obiectul afișat/salvat; se apelează pe firul JavaFX.
+    public void copyTo(BlockedApp app) {
+        app.resetDailyUsageIfNeeded();
+        app.setUsageMillisToday(getMillisToday(app.getId()));
+    }
+
+    public void retain(Collection<String> appIds) {
+        counters.keySet().retainAll(appIds);
+        if (file != null) {
+            file.retain(appIds);
+        }
+    }
+
+    public void flush() {
+        if (file != null) {
+            file.flush();
+        }
+    }
+
+    private void persist(String appId, long epochDay, long millis) {
+        if (file != null) {
+            file.write(appId, epochDay, millis);
+        }
+    }
+}
@@ -0,0 +1,377 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Istoricul utilizării per aplicație, pe zile și ore, în fișiere de coloane:
+//   usage_history.dat  - câte un bloc pe zi: epochDay, nr. rânduri, apoi coloanele
+//                        indici aplicație (int), total (long), 24 x milisecunde pe oră (int)
+//   usage_history.idx  - antet "PCUH"+versiune, apoi câte 16 octeți pe zi: epochDay, lungime, offset
+//   usage_history.apps - id-urile aplicațiilor, indicele = numărul liniei
+// Monitorul doar adaugă în ziua curentă din memorie; un fir separat rescrie periodic
+// ultimul bloc (ziua curentă este mereu la coada fișierului). Totalurile pe o perioadă
+// citesc doar coloanele de indici și totaluri ale zilelor găsite prin căutare binară în index.
+public class UsageHistory {
+    private static final int MAGIC = 0x50435548; // "PCUH"
+    private static final int VERSION = 1;
+    private static final int INDEX_HEADER = 8;
+    private static final int INDEX_ENTRY = 16;
+    private static final int HOURS = 24;
+    private static final long FLUSH_SECONDS = 60;
+
+    private final Path dataFile;
+    private final Path indexFile;
+    private final Path appsFile;
+    private final List<String> appIds = new ArrayList<>();
+    private final Map<String, Integer> appIndex = new HashMap<>();
+    private int[] days = new int[0];
+    private int[] lengths = new int[0];
+    private long[] offsets = new long[0];
+    private int dayCount;
+
+    private volatile DayBucket current;
+    private final ConcurrentLinkedQueue<DayBucket> sealed = new ConcurrentLinkedQueue<>();
+    private final ScheduledExecutorService flusher;
+
+    // Ziua în lucru: pentru fiecare aplicație, 24 de contoare orare.
+    private static final class DayBucket {
+        private final long epochDay;
+        private final Map<String, AtomicLongArray> hours = new ConcurrentHashMap<>();
+
+        private DayBucket(long epochDay) {
+            this.epochDay = epochDay;
+        }
+    }
+
+    public UsageHistory() {
+        String appDir = System.getenv("APPDATA");
+        if (appDir == null || appDir.isBlank()) {
+            appDir = System.getProperty("user.home");
+        }
+        Path dir = Path.of(appDir, "ParentalControlApp");
+        try {
+            Files.createDirectories(dir);
+        } catch (IOException ignored) {
+        }
+        dataFile = dir.resolve("usage_history.dat");
+        indexFile = dir.resolve("usage_history.idx");
+        appsFile = dir.resolve("usage_history.apps");
+        current = new DayBucket(LocalDate.now().toEpochDay());
+        try {
+            load();
+        } catch (IOException | RuntimeException ex) {
+            // istoricul lipsă sau deteriorat nu oprește aplicația; se pornește de la zero
+            dayCount = 0;
+            current.hours.clear();
+        }
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "UsageHistory");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, FLUSH_SECONDS, FLUSH_SECONDS, TimeUnit.SECONDS);
+    }
+
+    // Apelat de monitor la fiecare tick; doar incrementează contoare din memorie.
+    public void record(String appId, LocalDateTime at, long millis) {
+        if (millis <= 0) return;
+        long day = at.toLocalDate().toEpochDay();
+        DayBucket bucket = current;
+        if (bucket.epochDay != day) {
+            sealed.add(bucket);
+            bucket = new DayBucket(day);
+            current = bucket;
+        }
+        bucket.hours.computeIfAbsent(appId, id -> new AtomicLongArray(HOURS)).addAndGet(at.getHour(), millis);
+    }
+
+    // Totalul pe aplicație în intervalul [from, to], inclusiv ziua curentă încă nescrisă.
+    public Map<String, Long> totals(LocalDate from, LocalDate to) {
+        Map<String, Long> result = new HashMap<>();
+        long first = from.toEpochDay();
+        long last = to.toEpochDay();
+        DayBucket bucket = current;
+        synchronized (this) {
+            if (dayCount > 0) {
+                try (FileChannel ch = openData()) {
+                    for (int i = firstDayAtOrAfter(first); i < dayCount && days[i] <= last; i++) {
+                        if (days[i] == bucket.epochDay) continue;
+                        readTotals(ch, i, result);
+                    }
+                } catch (IOException ignored) {
+                    // se returnează ce s-a putut citi
+                }
+            }
+        }
+        if (bucket.epochDay >= first && bucket.epochDay <= last) {
+            bucket.hours.forEach((id, hours) -> result.merge(id, sum(hours), Long::sum));
+        }
+        return result;
+    }
+
+    // Utilizarea pe ore a unei zile: id aplicație -> 24 de valori.
+    public Map<String, long[]> hourly(LocalDate date) {
+        long day = date.toEpochDay();
+        DayBucket bucket = current;
+        Map<String, long[]> result = new HashMap<>();
+        if (bucket.epochDay == day) {
+            bucket.hours.forEach((id, hours) -> {
+                long[] values = new long[HOURS];
+                for (int h = 0; h < HOURS; h++) values[h] = hours.get(h);
+                result.put(id, values);
+            });
+            return result;
+        }
+        synchronized (this) {
+            int i = firstDayAtOrAfter(day);
+            if (i >= dayCount || days[i] != day) return result;
+            try (FileChannel ch = openData()) {
+                return decodeHours(read(ch, offsets[i], lengths[i]));
+            } catch (IOException ignored) {
+            }
+        }
+        return result;
+    }
+
+    public void flush() {
+        try {
+            flusher.submit(this::flushQuietly).get(5, TimeUnit.SECONDS);
+        } catch (Exception ignored) {
+            // best-effort la închidere
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            // citit înaintea cozii: o zi închisă între timp ajunge sigur în coadă înaintea celei noi
+            DayBucket live = current;
+            DayBucket done;
+            while ((done = sealed.poll()) != null) {
+                writeDay(done);
+            }
+            writeDay(live);
+        } catch (IOException | RuntimeException ignored) {
+            // se reîncearcă la următoarea trecere
+        }
+    }
+
+    private synchronized void writeDay(DayBucket bucket) throws IOException {
+        if (bucket.hours.isEmpty()) return;
+        if (dayCount > 0 && days[dayCount - 1] > bucket.epochDay) return;
+        List<String> ids = new ArrayList<>(bucket.hours.keySet());
+        int rows = ids.size();
+        ByteBuffer block = ByteBuffer.allocate(8 + rows * 12 + HOURS * rows * 4);
+        block.putInt((int) bucket.epochDay).putInt(rows);
+        long[][] values = new long[rows][];
+        for (int r = 0; r < rows; r++) {
+            block.putInt(internApp(ids.get(r)));
+            AtomicLongArray hours = bucket.hours.get(ids.get(r));
+            values[r] = new long[HOURS];
+            for (int h = 0; h < HOURS; h++) values[r][h] = hours.get(h);
+        }
+        for (int r = 0; r < rows; r++) {
+            block.putLong(Arrays.stream(values[r]).sum());
+        }
+        for (int h = 0; h < HOURS; h++) {
+            for (int r = 0; r < rows; r++) {
+                block.putInt((int) Math.min(Integer.MAX_VALUE, values[r][h]));
+            }
+        }
+        block.flip();
+
+        // ziua curentă este rescrisă peste ultimul ei bloc; o zi nouă se adaugă la coadă
+        boolean replace = dayCount > 0 && days[dayCount - 1] == bucket.epochDay;
+        int slot = replace ? dayCount - 1 : dayCount;
+        long offset = slot == 0 ? 0 : offsets[slot - 1] + lengths[slot - 1];
+        try (FileChannel ch = FileChannel.open(dataFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            ch.truncate(offset);
+            write(ch, block, offset);
+        }
+        if (!replace) {
+            ensureCapacity(dayCount + 1);
+            dayCount++;
+        }
+        days[slot] = (int) bucket.epochDay;
+        offsets[slot] = offset;
+        lengths[slot] = block.limit();
+        writeIndexEntry(slot);
+    }
+
+    private void writeIndexEntry(int slot) throws IOException {
+        try (FileChannel ch = FileChannel.open(indexFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            if (ch.size() < INDEX_HEADER) {
+                ByteBuffer header = ByteBuffer.allocate(INDEX_HEADER).putInt(MAGIC).putInt(VERSION);
+                header.flip();
+                ch.write(header, 0);
+            }
+            long position = INDEX_HEADER + (long) slot * INDEX_ENTRY;
+            ch.truncate(position);
+            ByteBuffer entry = ByteBuffer.allocate(INDEX_ENTRY)
+                    .putInt(days[slot]).putInt(lengths[slot]).putLong(offsets[slot]);
+            entry.flip();
+            write(ch, entry, position);
+        }
+    }
+
+    private int internApp(String id) throws IOException {
+        Integer idx = appIndex.get(id);
+        if (idx != null) return idx;
+        Files.writeString(appsFile, id + System.lineSeparator(), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        appIds.add(id);
+        appIndex.put(id, appIds.size() - 1);
+        return appIds.size() - 1;
+    }
+
+    private synchronized void load() throws IOException {
+        if (Files.exists(appsFile)) {
+            try (BufferedReader r = Files.newBufferedReader(appsFile, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = r.readLine()) != null) {
+                    appIndex.putIfAbsent(line, appIds.size());
+                    appIds.add(line);
+                }
+            }
+        }
+        if (!Files.exists(indexFile) || !Files.exists(dataFile)) return;
+        long dataSize = Files.size(dataFile);
+        ByteBuffer index = ByteBuffer.wrap(Files.readAllBytes(indexFile));
+        if (index.limit() < INDEX_HEADER || index.getInt(0) != MAGIC || index.getInt(4) != VERSION) {
+            throw new IOException("Index de istoric invalid");
+        }
+        int entries = (index.limit() - INDEX_HEADER) / INDEX_ENTRY;
+        ensureCapacity(entries);
+        for (int i = 0; i < entries; i++) {
+            int base = INDEX_HEADER + i * INDEX_ENTRY;
+            long offset = index.getLong(base + 8);
+            int length = index.getInt(base + 4);
+            // o intrare scrisă înaintea blocului ei (oprire bruscă) este ignorată
+            if (offset + length > dataSize) break;
+            days[i] = index.getInt(base);
+            lengths[i] = length;
+            offsets[i] = offset;
+            dayCount = i + 1;
+        }
+        if (dayCount == 0) return;
+        // doar ultimul bloc este rescris pe loc; o oprire între rescrierea lui și actualizarea
+        // indexului lasă lungimea din index nepotrivită cu blocul, iar ziua aceea se pierde
+        Map<String, long[]> last;
+        try (FileChannel ch = openData()) {
+            last = decodeHours(read(ch, offsets[dayCount - 1], lengths[dayCount - 1]));
+        } catch (IOException ex) {
+            dayCount--;
+            return;
+        }
+        // continuă ziua curentă de unde a rămas
+        if (days[dayCount - 1] == current.epochDay) {
+            last.forEach((id, values) -> current.hours.put(id, new AtomicLongArray(values)));
+        }
+    }
+
+    // Verifică un bloc citit după index: antetul trebuie să corespundă lungimii și indicilor cunoscuți.
+    private void checkBlock(ByteBuffer block) throws IOException {
+        if (block.limit() < 8) throw new IOException("Bloc de istoric incomplet");
+        int rows = block.getInt(4);
+        if (rows < 0 || rows > (block.limit() - 8) / (12 + HOURS * 4)
+                || 8L + rows * 12L + HOURS * rows * 4L != block.limit()) {
+            throw new IOException("Bloc de istoric nepotrivit cu indexul");
+        }
+        for (int r = 0; r < rows; r++) {
+            int app = block.getInt(8 + r * 4);
+            if (app < 0 || app >= appIds.size()) throw new IOException("Aplicație necunoscută în istoric");
+        }
+    }
+
+    private Map<String, long[]> decodeHours(ByteBuffer block) throws IOException {
+        checkBlock(block);
+        Map<String, long[]> result = new HashMap<>();
+        int rows = block.getInt(4);
+        int hoursStart = 8 + rows * 12;
+        for (int r = 0; r < rows; r++) {
+            long[] values = new long[HOURS];
+            for (int h = 0; h < HOURS; h++) {
+                values[h] = block.getInt(hoursStart + (h * rows + r) * 4);
+            }
+            result.put(appIds.get(block.getInt(8 + r * 4)), values);
+        }
+        return result;
+    }
+
+    private void readTotals(FileChannel ch, int i, Map<String, Long> result) throws IOException {
+        ByteBuffer head = read(ch, offsets[i], 8);
+        int rows = head.getInt(4);
+        if (rows < 0 || 8L + rows * 12L + HOURS * rows * 4L != lengths[i]) {
+            throw new IOException("Bloc de istoric nepotrivit cu indexul");
+        }
+        ByteBuffer columns = read(ch, offsets[i] + 8, rows * 12);
+        for (int r = 0; r < rows; r++) {
+            int app = columns.getInt(r * 4);
+            if (app < 0 || app >= appIds.size()) throw new IOException("Aplicație necunoscută în istoric");
+            result.merge(appIds.get(app), columns.getLong(rows * 4 + r * 8), Long::sum);
+        }
+    }
+
+    private int firstDayAtOrAfter(long day) {
+        int lo = 0;
+        int hi = dayCount;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (days[mid] < day) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private FileChannel openData() throws IOException {
+        return FileChannel.open(dataFile, StandardOpenOption.READ);
+    }
+
+    private static ByteBuffer read(FileChannel ch, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (ch.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Bloc de istoric incomplet");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static void write(FileChannel ch, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            ch.write(buffer, position + buffer.position());
+        }
+    }
+
+    private void ensureCapacity(int size) {
+        if (days.length >= size) return;
+        int capacity = Math.max(size, days.length * 2 + 16);
+        days = Arrays.copyOf(days, capacity);
+        lengths = Arrays.copyOf(lengths, capacity);
+        offsets = Arrays.copyOf(offsets, capacity);
+    }
+
+    private static long sum(AtomicLongArray values) {
+        long total = 0;
+        for (int i = 0; i < values.length(); i++) total += values.get(i);
+        return total;
+    }
+}
@@ -0,0 +1,47 @@
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+// Contorizează timpul de utilizare per aplicație, nu per proces: trei procese Chrome
+// consumă limita o singură dată. Folosește ceasul monoton (System.nanoTime), iar un
+// salt mai mare decât maxGap (ex. după suspendarea calculatorului) este plafonat.
+// Intrările aplicațiilor care nu mai rulează sunt eliminate la fiecare tick.
+// Fiecare increment ajunge și în istoricul pe zile/ore (UsageHistory).
+// Folosit doar de firul monitorului.
+public class UsageLedger {
+    private final Map<String, Long> lastSeenNanos = new HashMap<>();
+    private final UsageCounters counters;
+    private final UsageHistory history;
+
+    public UsageLedger(UsageCounters counters, UsageHistory history) {
+        this.counters = counters;
+        this.history = history;
+    }
+
+    // Adaugă timpul scurs de la tick-ul anterior aplicațiilor care rulau atunci și rulează și acum.
+    public void tick(Set<BlockedApp> running, LocalDateTime now, long nowNanos, long maxGapNanos) {
+        Set<String> runningIds = new HashSet<>();
+        for (BlockedApp app : running) {
+            runningIds.add(app.getId());
+        }
+        lastSeenNanos.keySet().retainAll(runningIds);
+        for (BlockedApp app : running) {
+            Long previous = lastSeenNanos.get(app.getId());
+            if (previous == null) {
+                lastSeenNanos.put(app.getId(), nowNanos);
+                continue;
+            }
+            long delta = Math.min(nowNanos - previous, maxGapNanos);
+            if (delta <= 0) {
+                lastSeenNanos.put(app.getId(), nowNanos);
+                continue;
+            }
+            counters.add(app.getId(), delta / 1_000_000L);
+            history.record(app.getId(), now, delta / 1_000_000L);
+            // restul sub o milisecundă se păstrează pentru tick-ul următor
+            lastSeenNanos.put(app.getId(), nowNanos - delta % 1_000_000L);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+// Un rând din tab-ul de rapoarte: utilizarea unei aplicații pe perioada aleasă,
+// comparată cu perioada anterioară de aceeași lungime.
+public class UsageReportRow {
+    private final String appName;
+    private final long totalMillis;
+    private final long previousMillis;
+    private final int days;
+
+    public UsageReportRow(String appName, long totalMillis, long previousMillis, int days) {
+        this.appName = appName;
+        this.totalMillis = totalMillis;
+        this.previousMillis = previousMillis;
+        this.days = Math.max(1, days);
+    }
+
+    public String getAppName() {
+        return appName;
+    }
+
+    public long getTotalMillis() {
+        return totalMillis;
+    }
+
+    public String getTotal() {
+        return formatDuration(totalMillis);
+    }
+
+    public String getDailyAverage() {
+        return formatDuration(totalMillis / days);
+    }
+
+    public String getTrend() {
+        if (previousMillis == 0) {
+            return totalMillis == 0 ? "-" : "nou";
+        }
+        long percent = Math.round((totalMillis - previousMillis) * 100.0 / previousMillis);
+        return (percent > 0 ? "+" : "") + percent + "%";
+    }
+
+    private static String formatDuration(long millis) {
+        long minutes = millis / 60_000L;
+        return String.format("%d:%02d", minutes / 60, minutes % 60);
+    }
+}
@@ -1,72 +1,185 @@
+import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
-import java.util.HashSet;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Set;
 import java.util.function.Consumer;
 
+// Secțiunea gestionată din hosts conține o singură linie "<adresă> <domeniu>" pe domeniu.
+// Înainte de scriere se compară amprenta SHA-256 a secțiunii noi cu a celei existente;
+// dacă sunt egale fișierul nu este atins. Altfel fișierul este scris în flux într-un
+// fișier temporar alăturat și înlocuiește originalul printr-o mutare atomică.
 public class WebsiteBlocker {
     private static final String START_MARKER = "# BEGIN PARENTAL_CONTROL";
     private static final String END_MARKER = "# END PARENTAL_CONTROL";
     private static final String HOSTS_PATH = "C:/Windows/System32/drivers/etc/hosts";
     private final Consumer<String> logger;
+    private final Path hostsFile;
+    // 0.0.0.0 eșuează imediat, fără o încercare de conectare la mașina locală
+    private volatile String sinkAddress = "0.0.0.0";
 
     public WebsiteBlocker(Consumer<String> logger) {
+        this(logger, Path.of(HOSTS_PATH));
+    }
+
+    WebsiteBlocker(Consumer<String> logger, Path hostsFile) {
         this.logger = logger;
+        this.hostsFile = hostsFile;
+    }
+
+    public String getSinkAddress() {
+        return sinkAddress;
     }
 
-    public void apply(List<BlockedSite> sites) throws IOException {
-        Path hosts = Path.of(HOSTS_PATH);
-        Path backup = hosts.resolveSibling("hosts.parental.bak");
+    public void setSinkAddress(String sinkAddress) {
+        if (sinkAddress == null || sinkAddress.isBlank()) {
+            throw new IllegalArgumentException("Adresa de redirecționare nu poate fi goală.");
+        }
+        this.sinkAddress = sinkAddress.trim();
+    }
+
+    public void apply(SiteRules rules) throws IOException {
+        Path backup = hostsFile.resolveSibling("hosts.parental.bak");
         if (!Files.exists(backup)) {
-            Files.copy(hosts, backup, StandardCopyOption.REPLACE_EXISTING);
+            Files.copy(hostsFile, backup, StandardCopyOption.REPLACE_EXISTING);
         }
-        List<String> lines = Files.readAllLines(hosts, StandardCharsets.UTF_8);
-        int start = findMarker(lines, START_MARKER);
-        int end = findMarker(lines, END_MARKER);
-        if (start >= 0 && end > start) {
-            lines.subList(start, end + 1).clear();
+        String sink = sinkAddress;
+        MessageDigest wanted = sha256();
+        int hostCount = forEachHost(rules, host -> digestLine(wanted, sink + " " + host));
+        byte[] existing = existingSectionHash();
+        if (existing != null && Arrays.equals(existing, wanted.digest())) {
+            log("Fișier hosts neschimbat (" + hostCount + " domenii).");
+            return;
         }
-        lines.add(START_MARKER);
-        Set<String> uniqueHosts = new HashSet<>();
-        for (BlockedSite site : sites) {
-            if (!site.isEnabled()) continue;
-            for (String host : site.getHostsForBlocking()) {
-                if (uniqueHosts.add(host)) {
-                    lines.add("127.0.0.1 " + host);
-                    lines.add("0.0.0.0 " + host);
-                }
+        rewrite(w -> {
+            w.write(START_MARKER);
+            w.newLine();
+            try {
+                forEachHost(rules, host -> {
+                    try {
+                        w.write(sink);
+                        w.write(' ');
+                        w.write(host);
+                        w.newLine();
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+            } catch (UncheckedIOException ex) {
+                throw ex.getCause();
             }
-        }
-        lines.add(END_MARKER);
-        Files.write(hosts, lines, StandardCharsets.UTF_8);
-        log("Fișier hosts actualizat pentru " + uniqueHosts.size() + " domenii.");
+            w.write(END_MARKER);
+            w.newLine();
+        });
+        log("Fișier hosts actualizat pentru " + hostCount + " domenii.");
+    }
+
+    // Parcurge domeniile împreună cu varianta www/fără www, fără duplicate și în aceeași
+    // ordine la fiecare apel; o variantă prezentă deja în mulțime este scrisă o singură dată.
+    private int forEachHost(SiteRules rules, Consumer<String> action) {
+        CompactDomainSet domains = rules.domains();
+        int[] count = {0};
+        domains.forEach(host -> {
+            action.accept(host);
+            count[0]++;
+            String variant = host.startsWith("www.") ? host.substring(4) : "www." + host;
+            if (!domains.contains(variant)) {
+                action.accept(variant);
+                count[0]++;
+            }
+        });
+        return count[0];
     }
 
     public void removeAll(List<BlockedSite> sites) throws IOException {
-        Path hosts = Path.of(HOSTS_PATH);
-        if (!Files.exists(hosts)) return;
-        List<String> lines = Files.readAllLines(hosts, StandardCharsets.UTF_8);
-        int start = findMarker(lines, START_MARKER);
-        int end = findMarker(lines, END_MARKER);
-        if (start >= 0 && end > start) {
-            lines.subList(start, end + 1).clear();
-            Files.write(hosts, lines, StandardCharsets.UTF_8);
-            log("Secțiunea de blocare a fost eliminată din hosts.");
+        if (existingSectionHash() == null) return;
+        rewrite(w -> { });
+        log("Secțiunea de blocare a fost eliminată din hosts.");
+    }
+
+    private interface SectionWriter {
+        void write(BufferedWriter w) throws IOException;
+    }
+
+    // Copiază liniile din afara secțiunii gestionate, apoi adaugă secțiunea nouă la final.
+    private void rewrite(SectionWriter section) throws IOException {
+        Path tmp = hostsFile.resolveSibling("hosts.parental.tmp");
+        try (BufferedReader r = Files.newBufferedReader(hostsFile, StandardCharsets.UTF_8);
+             BufferedWriter w = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            List<String> pending = null;
+            String line;
+            while ((line = r.readLine()) != null) {
+                if (pending == null && line.trim().equals(START_MARKER)) {
+                    pending = new ArrayList<>();
+                    pending.add(line);
+                } else if (pending != null) {
+                    if (line.trim().equals(END_MARKER)) {
+                        pending = null;
+                    } else {
+                        pending.add(line);
+                    }
+                } else {
+                    w.write(line);
+                    w.newLine();
+                }
+            }
+            // marcaj de început fără sfârșit: liniile nu aparțin secțiunii și se păstrează
+            if (pending != null) {
+                for (String kept : pending) {
+                    w.write(kept);
+                    w.newLine();
+                }
+            }
+            section.write(w);
+        }
+        try {
+            Files.move(tmp, hostsFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(tmp, hostsFile, StandardCopyOption.REPLACE_EXISTING);
         }
     }
 
-    private int findMarker(List<String> lines, String marker) {
-        for (int i = 0; i < lines.size(); i++) {
-            if (lines.get(i).trim().equals(marker)) {
-                return i;
+    // Amprenta liniilor dintre marcaje, sau null dacă fișierul nu are o secțiune completă.
+    private byte[] existingSectionHash() throws IOException {
+        if (!Files.exists(hostsFile)) return null;
+        try (BufferedReader r = Files.newBufferedReader(hostsFile, StandardCharsets.UTF_8)) {
+            MessageDigest digest = null;
+            String line;
+            while ((line = r.readLine()) != null) {
+                if (digest == null) {
+                    if (line.trim().equals(START_MARKER)) {
+                        digest = sha256();
+                    }
+                } else if (line.trim().equals(END_MARKER)) {
+                    return digest.digest();
+                } else {
+                    digestLine(digest, line);
+                }
             }
         }
-        return -1;
+        return null;
+    }
+
+    private static void digestLine(MessageDigest digest, String line) {
+        digest.update(line.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) '\n');
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 
     private void log(String msg) {
@@ -76,4 +189,3 @@ public class WebsiteBlocker {
         }
     }
 }
-